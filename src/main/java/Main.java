@@ -49,6 +49,18 @@ public class Main {
       customProperties.forEach( (k, v) -> {
           switch (k) {
               case "port" -> nodeConfig.getServer().put(TCP_PORT, v);
+              case "io-threads" -> nodeConfig.getServer().put(IO_THREADS, v);
+              case "server-mode" -> nodeConfig.getServer().put(SERVER_MODE, v);
+              case "unixsocket" -> nodeConfig.getServer().put(UNIX_SOCKET, v);
+              case "unixsocketperm" -> nodeConfig.getServer().put(UNIX_SOCKET_PERM, v);
+              case "client-output-buffer-limit" -> nodeConfig.getSettings().put(CLIENT_OUTPUT_BUFFER_LIMIT, v);
+              case "client-query-buffer-limit" -> nodeConfig.getSettings().put(CLIENT_QUERY_BUFFER_LIMIT, v);
+              case "client-output-read-pause" -> nodeConfig.getSettings().put(CLIENT_OUTPUT_READ_PAUSE, v);
+              case "timeout" -> nodeConfig.getSettings().put(TIMEOUT, v);
+              case "slowlog-log-slower-than" -> nodeConfig.getSettings().put(SLOWLOG_LOG_SLOWER_THAN, v);
+              case "slowlog-max-len" -> nodeConfig.getSettings().put(SLOWLOG_MAX_LEN, v);
+              case "active-expire-effort" -> nodeConfig.getSettings().put(ACTIVE_EXPIRE_EFFORT, v);
+              case "precise-clock" -> nodeConfig.getSettings().put(PRECISE_CLOCK, v);
               case "replicaof" -> {
                   var masterInfo = v.split(" ");
                   var host = masterInfo[0];
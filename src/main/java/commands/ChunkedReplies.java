@@ -0,0 +1,202 @@
+package commands;
+
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Implementations of {@link ChunkedReply}, created through its factory methods.
+ */
+final class ChunkedReplies {
+    // short ranges are encoded in a single chunk, which should not cost a whole chunk of memory
+    private static final int FIRST_CHUNK_CAPACITY = 256;
+
+    private ChunkedReplies() {
+    }
+
+    /**
+     * A reply that is already encoded, handed over part by part.
+     */
+    static final class Parts implements ChunkedReply {
+        private final List<ByteBuffer> parts;
+        private int next;
+
+        Parts(List<ByteBuffer> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public boolean hasNextChunk() {
+            return this.next < this.parts.size();
+        }
+
+        @Override
+        public ByteBuffer nextChunk() {
+            return this.parts.get(this.next++);
+        }
+
+        @Override
+        public boolean isError() {
+            return !this.parts.isEmpty() && ProtocolUtils.isError(this.parts.getFirst());
+        }
+    }
+
+    /**
+     * Encodes a reply piece by piece, until the chunk is full or the reply is complete.
+     */
+    abstract static class Encoded implements ChunkedReply {
+        private boolean started;
+        private boolean complete;
+
+        @Override
+        public boolean hasNextChunk() {
+            return !this.complete;
+        }
+
+        @Override
+        public ByteBuffer nextChunk() {
+            // room for the piece crossing the chunk boundary, so that the writer does not have to grow
+            var writer = new RespWriter(this.started ? 2 * CHUNK_SIZE : FIRST_CHUNK_CAPACITY);
+            this.started = true;
+            while (!this.complete && writer.size() < CHUNK_SIZE) {
+                this.complete = !writeNext(writer);
+            }
+            return writer.toBuffer();
+        }
+
+        /**
+         * Writes the next piece of the reply.
+         * @return false once the whole reply has been written
+         */
+        protected abstract boolean writeNext(RespWriter writer);
+    }
+
+    static final class BulkList extends Encoded {
+        private final ByteString[] values;
+        private int next = -1;
+
+        BulkList(ByteString[] values) {
+            this.values = values;
+        }
+
+        @Override
+        protected boolean writeNext(RespWriter writer) {
+            if (this.next < 0) {
+                writer.arrayHeader(this.values.length);
+                this.next = 0;
+            } else {
+                writer.bulk(this.values[this.next++]);
+            }
+            return this.next < this.values.length;
+        }
+    }
+
+    /**
+     * The entries of a stream range. Only the references to the ids and fields are copied,
+     * stream entries are never modified once added.
+     */
+    static final class StreamRange {
+        private final String[] ids;
+        private final Map<String, String>[] fields;
+
+        @SuppressWarnings("unchecked")
+        StreamRange(SortedMap<String, Map<String, String>> stream) {
+            this.ids = new String[stream.size()];
+            this.fields = new Map[stream.size()];
+            var i = 0;
+            for (var entry : stream.entrySet()) {
+                this.ids[i] = entry.getKey();
+                this.fields[i++] = entry.getValue();
+            }
+        }
+
+        int size() {
+            return this.ids.length;
+        }
+
+        /**
+         * Writes an entry as an id followed by the list of its fields and values.
+         */
+        void writeEntry(RespWriter writer, int index) {
+            writer.arrayHeader(2).bulk(this.ids[index]);
+
+            var entryFields = this.fields[index];
+            writer.arrayHeader(entryFields.size() * 2);
+            for (var field : entryFields.entrySet()) {
+                writer.bulk(field.getKey()).bulk(field.getValue());
+            }
+        }
+    }
+
+    /**
+     * XRANGE reply, the array of the entries of a non-empty range.
+     */
+    static final class StreamEntries extends Encoded {
+        private final StreamRange range;
+        private int next = -1;
+
+        StreamEntries(StreamRange range) {
+            this.range = range;
+        }
+
+        @Override
+        protected boolean writeNext(RespWriter writer) {
+            if (this.next < 0) {
+                writer.arrayHeader(this.range.size());
+                this.next = 0;
+            } else {
+                this.range.writeEntry(writer, this.next++);
+            }
+            return this.next < this.range.size();
+        }
+    }
+
+    /**
+     * XREAD reply, an array holding a [key, entries] pair for every stream.
+     */
+    static final class StreamList extends Encoded {
+        private final List<ByteString> keys;
+        private final List<StreamRange> ranges;
+        private int key = -1;
+        // -1 while the current key and its array header are not written yet
+        private int entry = -1;
+
+        StreamList(List<ByteString> keys, List<StreamRange> ranges) {
+            this.keys = keys;
+            this.ranges = ranges;
+        }
+
+        @Override
+        protected boolean writeNext(RespWriter writer) {
+            if (this.key < 0) {
+                writer.arrayHeader(this.keys.size());
+                this.key = 0;
+                return this.key < this.keys.size();
+            }
+
+            var range = this.ranges.get(this.key);
+            if (this.entry < 0) {
+                writer.arrayHeader(2).bulk(this.keys.get(this.key));
+                if (range.size() == 0) {
+                    writer.nullArray();
+                    return nextKey();
+                }
+                writer.arrayHeader(range.size());
+                this.entry = 0;
+                return true;
+            }
+
+            range.writeEntry(writer, this.entry++);
+            return this.entry < range.size() || nextKey();
+        }
+
+        private boolean nextKey() {
+            this.key++;
+            this.entry = -1;
+            return this.key < this.keys.size();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package commands;
+
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * A reply handed to the connection a chunk at a time.
+ * Large range replies (LRANGE, XRANGE, XREAD) are encoded lazily into chunks of about
+ * {@link #CHUNK_SIZE} bytes: the next chunk is only encoded once the previous one has been written,
+ * and the event loop serves its other clients in between. The server then holds one chunk
+ * per streaming client instead of the whole encoded reply, however large the range is.
+ * <p>
+ * The elements of a range are captured when the command executes, as references to values that
+ * are never modified in place, so chunks can be encoded later without holding the execution lock.
+ */
+public interface ChunkedReply {
+    int CHUNK_SIZE = 16 * 1024;
+
+    boolean hasNextChunk();
+
+    /**
+     * @return the next chunk of the reply, ready to be written
+     */
+    ByteBuffer nextChunk();
+
+    /**
+     * @return true if the reply is an error, which only a reply of already encoded parts can be
+     */
+    default boolean isError() {
+        return false;
+    }
+
+    /**
+     * Encodes the rest of the reply into a single buffer, for the few places that need it whole.
+     * @return the remaining chunks, concatenated
+     */
+    default ByteBuffer encodeAll() {
+        var first = nextChunk();
+        if (!hasNextChunk()) {
+            return first;
+        }
+
+        var chunks = new ArrayList<ByteBuffer>();
+        chunks.add(first);
+        var size = first.remaining();
+        while (hasNextChunk()) {
+            var chunk = nextChunk();
+            chunks.add(chunk);
+            size += chunk.remaining();
+        }
+
+        var reply = ByteBuffer.allocate(size);
+        chunks.forEach(reply::put);
+        return reply.flip();
+    }
+
+    /**
+     * @param reply an already encoded reply
+     * @return a reply made of a single chunk
+     */
+    static ChunkedReply of(ByteBuffer reply) {
+        return new ChunkedReplies.Parts(List.of(reply));
+    }
+
+    /**
+     * @param parts the parts of an already encoded reply, in order
+     * @return a reply made of the given chunks
+     */
+    static ChunkedReply of(List<ByteBuffer> parts) {
+        return new ChunkedReplies.Parts(parts);
+    }
+
+    /**
+     * @param values a range of a list, captured right away
+     * @return the values as an array of bulk strings
+     */
+    static ChunkedReply ofBulkList(List<ByteString> values) {
+        return new ChunkedReplies.BulkList(values.toArray(ByteString[]::new));
+    }
+
+    /**
+     * Reply of XRANGE: a list of entries, each entry being a list holding
+     *      1. the entry id as a bulk string
+     *      2. a list of the entry's fields and values ( ["key", "value"] )
+     * @param stream a range of a stream, captured right away
+     */
+    static ChunkedReply ofStream(SortedMap<String, Map<String, String>> stream) {
+        if (stream.isEmpty()) {
+            return of(ProtocolUtils.nullList());
+        }
+        return new ChunkedReplies.StreamEntries(new ChunkedReplies.StreamRange(stream));
+    }
+
+    /**
+     * Reply of XREAD: a list holding, for every stream with selected entries, a list of
+     *      1. the stream key as a bulk string
+     *      2. the selected entries, encoded like {@link #ofStream(SortedMap)}
+     * @param streamCollection the selected range of each stream, captured right away
+     * @param keys the keys in the order the client gave them, to preserve it in the reply
+     */
+    static ChunkedReply ofStreamList(Map<ByteString, SortedMap<String, Map<String, String>>> streamCollection,
+                                     List<ByteString> keys) {
+        if (streamCollection.isEmpty()) {
+            return of(ProtocolUtils.nullList());
+        }
+
+        // the keys may be slices of the read buffer, which is reused before the last chunk is encoded
+        var selectedKeys = ByteString.copyAll(keys.stream().filter(streamCollection::containsKey).toList());
+        var ranges = selectedKeys.stream()
+                .map(key -> new ChunkedReplies.StreamRange(streamCollection.get(key)))
+                .toList();
+        return new ChunkedReplies.StreamList(selectedKeys, ranges);
+    }
+}
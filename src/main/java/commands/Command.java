@@ -1,47 +1,121 @@
 package commands;
 
+import lombok.Getter;
+import store.types.ByteString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static commands.CommandFlag.*;
+
+/**
+ * The commands known to the server, with the metadata redis reports for them in COMMAND INFO.
+ * <ul>
+ *     <li>arity: the number of arguments, command name included. A negative arity -n means at least n</li>
+ *     <li>flags: see {@link CommandFlag}</li>
+ *     <li>firstKey, lastKey, keyStep: the positions of the keys among the arguments, command name
+ *     being 0. A negative lastKey counts from the end, -1 being the last argument.
+ *     Commands without keys have 0 everywhere</li>
+ * </ul>
+ */
+@Getter
 public enum Command {
-    COMMAND("command"),
-    PING("ping"),
-    ECHO("echo"),
-    GET("get"),
-    SET("set"),
-    DEL("del"),
-    LRANGE("lrange"),
-    LLEN("llen"),
-    LPOP("lpop"),
-    TYPE("type"),
-    XRANGE("xrange"),
-    BLPOP("blpop"),
-    RPUSH("rpush"),
-    LPUSH("lpush"),
-    XREAD("xread"),
-    XADD("xadd"),
-    INCR("incr"),
-    MULTI("multi"),
-    EXEC("exec"),
-    DISCARD("discard"),
-    SUBSCRIBE("subscribe"),
-    INFO("info"),
-    NO_COMMAND("no_command");
+    COMMAND("command", -1, 0, 0, 0),
+    PING("ping", -1, 0, 0, 0, FAST),
+    ECHO("echo", 2, 0, 0, 0, FAST),
+    GET("get", 2, 1, 1, 1, READONLY, FAST),
+    SET("set", -3, 1, 1, 1, WRITE),
+    DEL("del", -2, 1, -1, 1, WRITE),
+    LRANGE("lrange", 4, 1, 1, 1, READONLY),
+    LLEN("llen", 2, 1, 1, 1, READONLY, FAST),
+    LPOP("lpop", -2, 1, 1, 1, WRITE, FAST),
+    TYPE("type", 2, 1, 1, 1, READONLY, FAST),
+    XRANGE("xrange", 4, 1, 1, 1, READONLY),
+    BLPOP("blpop", -3, 1, -2, 1, WRITE, BLOCKING),
+    RPUSH("rpush", -3, 1, 1, 1, WRITE, FAST),
+    LPUSH("lpush", -3, 1, 1, 1, WRITE, FAST),
+    XREAD("xread", -4, 0, 0, 0, READONLY, BLOCKING, MOVABLE_KEYS) {
+        /**
+         * The keys are the first half of the arguments following STREAMS, the ids being the second half.
+         */
+        @Override
+        public List<ByteString> keys(List<ByteString> command) {
+            for (int i = 1; i < command.size(); i++) {
+                if (command.get(i).equalsIgnoreCase("STREAMS")) {
+                    var streams = command.size() - i - 1;
+                    if (streams % 2 != 0) {
+                        return List.of();
+                    }
+                    return command.subList(i + 1, i + 1 + streams / 2);
+                }
+            }
+            return List.of();
+        }
+    },
+    XADD("xadd", -5, 1, 1, 1, WRITE, FAST),
+    INCR("incr", 2, 1, 1, 1, WRITE, FAST),
+    MULTI("multi", 1, 0, 0, 0, FAST),
+    EXEC("exec", 1, 0, 0, 0),
+    DISCARD("discard", 1, 0, 0, 0, FAST),
+    SUBSCRIBE("subscribe", -2, 0, 0, 0),
+    INFO("info", -1, 0, 0, 0),
+    CLIENT("client", -2, 0, 0, 0, ADMIN),
+    LATENCY("latency", -2, 0, 0, 0, ADMIN),
+    SLOWLOG("slowlog", -2, 0, 0, 0, ADMIN),
+    MEMORY("memory", -2, 0, 0, 0),
+    NO_COMMAND("no_command", 0, 0, 0, 0);
 
     private final String commandName;
+    private final int arity;
+    private final Set<CommandFlag> flags;
+    private final int firstKey;
+    private final int lastKey;
+    private final int keyStep;
 
-    Command(String commandName) {
+    Command(String commandName, int arity, int firstKey, int lastKey, int keyStep, CommandFlag... flags) {
         this.commandName = commandName;
+        this.arity = arity;
+        this.firstKey = firstKey;
+        this.lastKey = lastKey;
+        this.keyStep = keyStep;
+        this.flags = flags.length == 0 ? EnumSet.noneOf(CommandFlag.class) : EnumSet.copyOf(Arrays.asList(flags));
     }
 
-    @Override
-    public String toString() {
-        return this.commandName;
+    /**
+     * @param argumentCount the number of arguments, command name included
+     * @return whether the command can be called with that many arguments
+     */
+    public boolean acceptsArgumentCount(int argumentCount) {
+        return this.arity >= 0 ? argumentCount == this.arity : argumentCount >= -this.arity;
     }
 
-    public static Command fromString(String commandName) {
-        for (Command command : Command.values()) {
-            if (command.commandName.equalsIgnoreCase(commandName)) {
-                return command;
-            }
+    public boolean hasFlag(CommandFlag flag) {
+        return this.flags.contains(flag);
+    }
+
+    /**
+     * Finds the keys of a call to this command, the way a cluster client would to route it.
+     * @param command the command name followed by its arguments, with an accepted arity
+     * @return the key arguments, in order
+     */
+    public List<ByteString> keys(List<ByteString> command) {
+        if (this.firstKey == 0) {
+            return List.of();
         }
-        return null;
+
+        var lastKey = this.lastKey < 0 ? command.size() + this.lastKey : this.lastKey;
+        var keys = new ArrayList<ByteString>();
+        for (int i = this.firstKey; i <= lastKey && i < command.size(); i += this.keyStep) {
+            keys.add(command.get(i));
+        }
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return this.commandName;
     }
 }
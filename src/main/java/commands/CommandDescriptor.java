@@ -0,0 +1,16 @@
+package commands;
+
+/**
+ * Everything the handler needs to know about a command, resolved when the command is registered.
+ * @param command the command
+ * @param executor runs the command
+ */
+public record CommandDescriptor(Command command, CommandExecutor executor) {
+
+    /**
+     * @return the command's name, as clients send it
+     */
+    public String name() {
+        return this.command.toString();
+    }
+}
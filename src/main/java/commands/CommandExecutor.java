@@ -0,0 +1,27 @@
+package commands;
+
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/**
+ * A command strategy adapted, once at startup, to the two ways the handler runs commands.
+ */
+public interface CommandExecutor {
+
+    /**
+     * Runs the command and sends its reply to the client, now or once it is ready.
+     * @param args the command's arguments, without its name
+     * @return false if the command replied with an error. Commands replying later report true
+     */
+    boolean execute(List<ByteString> args, SocketChannel client);
+
+    /**
+     * Runs the command inside a transaction, where the reply is needed right away.
+     * @param args the command's arguments, without its name
+     * @return the reply, or null if the command can not be part of a transaction
+     */
+    ByteBuffer executeInTransaction(List<ByteString> args, SocketChannel client);
+}
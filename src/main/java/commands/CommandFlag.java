@@ -0,0 +1,25 @@
+package commands;
+
+/**
+ * Properties of a command, reported by COMMAND INFO under the names redis uses.
+ */
+public enum CommandFlag {
+    WRITE("write"),
+    READONLY("readonly"),
+    BLOCKING("blocking"),
+    FAST("fast"),
+    ADMIN("admin"),
+    // the keys can not be found from the key positions, COMMAND GETKEYS has to be asked
+    MOVABLE_KEYS("movablekeys");
+
+    private final String flagName;
+
+    CommandFlag(String flagName) {
+        this.flagName = flagName;
+    }
+
+    @Override
+    public String toString() {
+        return this.flagName;
+    }
+}
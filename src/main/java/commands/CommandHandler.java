@@ -1,6 +1,9 @@
 package commands;
 
 import commands.async.*;
+import commands.stats.CommandStats;
+import commands.stats.MemoryStats;
+import commands.stats.SlowLog;
 import commands.strategies.lists.*;
 import commands.strategies.misc.*;
 import commands.strategies.streams.XADDStrategy;
@@ -15,11 +18,17 @@ import commands.strategies.transactional.MULTIStrategy;
 import commands.transaction.TransactionManager;
 import commands.transaction.TransactionalClientManager;
 import commands.transaction.TransactionalCommandStrategy;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import server.ClientInfo;
+import server.ClientRegistry;
 import server.Configuration;
+import store.ActiveExpiry;
 import store.KeyValueStore;
+import store.ServerClock;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
@@ -28,81 +37,198 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import static commands.Command.*;
 import static commands.ProtocolUtils.*;
-import static java.util.Map.entry;
 
 @Slf4j
 @Getter
 @Setter
 public class CommandHandler implements BlockingClientManager, TransactionManager {
 
-    // todo strategies should be final. fix the blop issue when constructing the map
-    private Map<Command, Object> strategies;
+    private final CommandTable commands;
+    private final CommandStats commandStats = new CommandStats();
+    private final SlowLog slowLog;
+    private final MemoryStats memoryStats;
+    private final KeyValueStore kvStore;
+    private final ServerClock clock;
+    private final ActiveExpiry activeExpiry;
+    private final Map<String, String> stats;
+    private final LPOPStrategy lpop;
+    private final XREADStrategy xread;
     private final AsyncCommandObserver asyncCommandObserver;
+    private final ClientRegistry clientRegistry;
 
-    private final Map<String, List<BlockedClient>> waitingClients = new ConcurrentHashMap<>();
+    private final Map<ByteString, List<BlockedClient>> waitingClients = new ConcurrentHashMap<>();
+    private final BlockedClientTimeouts blockedClientTimeouts = new BlockedClientTimeouts();
     private final TransactionalClientManager clientManager = new TransactionalClientManager();
 
-    public CommandHandler(KeyValueStore kvStore, AsyncCommandObserver observer, Configuration configuration) {
-        this.strategies = new HashMap<>(Map.ofEntries(
-                entry(COMMAND, new DOCSStrategy()),
-                entry(PING, new PINGStrategy()),
-                entry(ECHO, new ECHOStrategy()),
-                entry(GET, new GETStrategy(kvStore)),
-                entry(SET, new SETStrategy(kvStore)),
-                entry(DEL, new DELStrategy(kvStore)),
-                entry(LRANGE, new LRANGEStrategy(kvStore)),
-                entry(LLEN, new LLENStrategy(kvStore)),
-                entry(LPOP, new LPOPStrategy(kvStore)),
-                entry(TYPE, new TYPEStrategy(kvStore)),
-                entry(XRANGE, new XRANGEStrategy(kvStore)),
-                entry(INCR, new INCRStrategy(kvStore)),
-                entry(MULTI, new MULTIStrategy(clientManager)),
-                entry(DISCARD, new DISCARDStrategy(clientManager)),
-                entry(INFO, new INFOStrategy(configuration))
-        ));
+    // the client of the asynchronous command being executed, and whether it has been replied an error.
+    // asynchronous commands reply through sendResponse, which is where their failures are seen
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private SocketChannel asyncCaller;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean asyncCallerFailed;
 
-        strategies.put(BLPOP, new BLPOPStrategy(kvStore, this));
-        strategies.put(RPUSH, new RPUSHStrategy(kvStore, this));
-        strategies.put(LPUSH, new LPUSHStrategy(kvStore, this));
-        strategies.put(XREAD, new XREADStrategy(kvStore, this));
-        strategies.put(XADD, new XADDStrategy(kvStore, this));
-        strategies.put(EXEC, new EXECStrategy(clientManager, this));
+    public CommandHandler(KeyValueStore kvStore, AsyncCommandObserver observer,
+                          ClientRegistry clientRegistry, Configuration configuration) {
         this.asyncCommandObserver = observer;
+        this.clientRegistry = clientRegistry;
+        this.kvStore = kvStore;
+        this.clock = kvStore.getClock();
+        this.activeExpiry = new ActiveExpiry(kvStore,
+                Integer.parseInt(configuration.getSettings().get(Configuration.ACTIVE_EXPIRE_EFFORT)));
+        this.stats = configuration.getStats();
+        this.memoryStats = new MemoryStats(kvStore, clientRegistry);
+        this.lpop = new LPOPStrategy(kvStore);
+        this.xread = new XREADStrategy(kvStore, this);
+        this.slowLog = new SlowLog(
+                Long.parseLong(configuration.getSettings().get(Configuration.SLOWLOG_LOG_SLOWER_THAN)),
+                Integer.parseInt(configuration.getSettings().get(Configuration.SLOWLOG_MAX_LEN))
+        );
+
+        this.commands = new CommandTable(List.of(
+                describe(COMMAND, new COMMANDStrategy(() -> this.commands)),
+                describe(PING, new PINGStrategy()),
+                describe(ECHO, new ECHOStrategy()),
+                describe(GET, new GETStrategy(kvStore)),
+                describe(SET, new SETStrategy(kvStore)),
+                describe(DEL, new DELStrategy(kvStore)),
+                describe(LLEN, new LLENStrategy(kvStore)),
+                describe(LPOP, this.lpop),
+                describe(TYPE, new TYPEStrategy(kvStore)),
+                describe(INCR, new INCRStrategy(kvStore)),
+                describe(MULTI, new MULTIStrategy(clientManager)),
+                describe(DISCARD, new DISCARDStrategy(clientManager)),
+                describe(INFO, new INFOStrategy(configuration, this.commandStats, this.memoryStats)),
+                describe(LATENCY, new LATENCYStrategy(this.commandStats, () -> this.commands)),
+                describe(SLOWLOG, new SLOWLOGStrategy(this.slowLog)),
+                describe(MEMORY, new MEMORYStrategy(kvStore, this.memoryStats)),
+                describe(CLIENT, new CLIENTStrategy(clientRegistry)),
+                describe(LRANGE, new LRANGEStrategy(kvStore, this)),
+                describe(XRANGE, new XRANGEStrategy(kvStore, this)),
+                describe(BLPOP, new BLPOPStrategy(kvStore, this)),
+                describe(RPUSH, new RPUSHStrategy(kvStore, this)),
+                describe(LPUSH, new LPUSHStrategy(kvStore, this)),
+                describe(XREAD, this.xread),
+                describe(XADD, new XADDStrategy(kvStore, this)),
+                describe(EXEC, new EXECStrategy(clientManager, this))
+        ));
     }
 
-    public void execute(List<String> args, SocketChannel clientSocket) {
-        var command = args.getFirst().toUpperCase();
+    /**
+     * Adapts a strategy to a {@link CommandExecutor}, so that its kind is resolved once here
+     * rather than on every call.
+     * Synchronous strategies take precedence over asynchronous ones, which take precedence
+     * over transactional ones; inside a transaction only synchronous and transactional strategies run.
+     */
+    private CommandDescriptor describe(Command command, Object strategy) {
+        var transactional = strategy instanceof TransactionalCommandStrategy tcs ? tcs : null;
+        CommandExecutor executor = switch (strategy) {
+            case CommandStrategy sync -> new CommandExecutor() {
+                @Override
+                public boolean execute(List<ByteString> args, SocketChannel client) {
+                    var reply = sync.execute(args);
+                    asyncCommandObserver.onResponseReady(client, reply);
+                    return !isError(reply);
+                }
+
+                @Override
+                public ByteBuffer executeInTransaction(List<ByteString> args, SocketChannel client) {
+                    return sync.execute(args);
+                }
+            };
+            case AsyncCommandStrategy async -> new CommandExecutor() {
+                @Override
+                public boolean execute(List<ByteString> args, SocketChannel client) {
+                    asyncCaller = client;
+                    asyncCallerFailed = false;
+                    try {
+                        async.executeAsync(args, client);
+                    } finally {
+                        asyncCaller = null;
+                    }
+                    return !asyncCallerFailed;
+                }
+
+                @Override
+                public ByteBuffer executeInTransaction(List<ByteString> args, SocketChannel client) {
+                    return transactional == null ? null : transactional.execute(args, client);
+                }
+            };
+            case TransactionalCommandStrategy tcs -> new CommandExecutor() {
+                @Override
+                public boolean execute(List<ByteString> args, SocketChannel client) {
+                    var reply = tcs.execute(args, client);
+                    asyncCommandObserver.onResponseReady(client, reply);
+                    return !isError(reply);
+                }
+
+                @Override
+                public ByteBuffer executeInTransaction(List<ByteString> args, SocketChannel client) {
+                    return tcs.execute(args, client);
+                }
+            };
+            default -> throw new IllegalArgumentException("Unsupported strategy for " + command);
+        };
+        return new CommandDescriptor(command, executor);
+    }
 
-        var strategy = strategies.getOrDefault(fromString(command), null);
+    /**
+     * Executes a command. The arguments may be slices of the client's read buffer,
+     * anything that outlives the call has to be copied.
+     * The time spent executing it is recorded in the command statistics, and in the slow log when too long.
+     * The command is recorded as the client's last one, as reported by CLIENT LIST.
+     * @param args the command name followed by its arguments
+     * @param client the client that sent the command
+     */
+    public void execute(List<ByteString> args, ClientInfo client) {
+        var clientSocket = client.getChannel();
+        var descriptor = this.commands.get(args.getFirst());
+        client.commandExecuted(descriptor == null ? null : descriptor.command());
+        // checked before queueing, so that a transaction does not hold calls that can not run
+        if (descriptor != null && !descriptor.command().acceptsArgumentCount(args.size())) {
+            this.commandStats.reject(descriptor.command());
+            asyncCommandObserver.onResponseReady(clientSocket, wrongArity(descriptor));
+            return;
+        }
 
         if (clientManager.isInTransaction(clientSocket)) {
-            if (!(strategy instanceof EXECStrategy || strategy instanceof DISCARDStrategy)) {
+            if (descriptor == null || (descriptor.command() != EXEC && descriptor.command() != DISCARD)) {
                 clientManager.queueCommand(args, clientSocket);
-                asyncCommandObserver.onResponseReady(clientSocket, ByteBuffer.wrap(QUEUED.getBytes()));
+                asyncCommandObserver.onResponseReady(clientSocket, queued());
                 return;
             }
         }
 
-        switch (strategy) {
-            case null -> {
-                String error = String.format("Command %s does not exist", command);
-                asyncCommandObserver.onResponseReady(clientSocket, ByteBuffer.wrap(encodeSimpleError(error).getBytes()));
-            }
-            case CommandStrategy syncCommand -> {
-                var response = syncCommand.execute(args.subList(1, args.size()));
-                asyncCommandObserver.onResponseReady(clientSocket, response);
-            }
-            case AsyncCommandStrategy asyncCommand ->
-                    asyncCommand.executeAsync(args.subList(1, args.size()), clientSocket);
-            case TransactionalCommandStrategy transactionalCommand -> {
-                var response = transactionalCommand.execute(args.subList(1, args.size()), clientSocket);
-                asyncCommandObserver.onResponseReady(clientSocket, response);
-            }
-            default -> {
+        if (descriptor == null) {
+            asyncCommandObserver.onResponseReady(clientSocket, unknownCommand(args.getFirst()));
+            return;
+        }
+
+        var start = System.nanoTime();
+        var succeeded = false;
+        try {
+            succeeded = descriptor.executor().execute(args.subList(1, args.size()), clientSocket);
+        } catch (RuntimeException e) {
+            // the loop executing this command serves many other clients, a bug in one command must not stop it
+            log.error("Command {} failed", descriptor.name(), e);
+            asyncCommandObserver.onResponseReady(clientSocket, encodeSimpleError(Errors.COMMAND_FAIL));
+        } finally {
+            var duration = System.nanoTime() - start;
+            this.commandStats.record(descriptor.command(), duration, !succeeded);
+            if (this.slowLog.isSlow(duration)) {
+                logSlowCommand(args, clientSocket, duration);
             }
         }
     }
 
+    private void logSlowCommand(List<ByteString> args, SocketChannel clientSocket, long durationNanos) {
+        var client = this.clientRegistry.get(clientSocket);
+        this.slowLog.add(args, durationNanos,
+                client == null ? "" : client.getAddress(),
+                client == null ? "" : client.getName());
+    }
+
     /**
      * Method forces async commands to behave like synchronous commands by returning instantly,
      * whether they have a response prepared or not
@@ -110,49 +236,128 @@ public class CommandHandler implements BlockingClientManager, TransactionManager
      * @param clientSocket the client socket channel involved in this transaction
      * @return the command's response
      */
-    public ByteBuffer executeInTransaction(List<String> args, SocketChannel clientSocket) {
-        var command = args.getFirst().toUpperCase();
-
-        var strategy = strategies.getOrDefault(fromString(command), null);
-
-        if (strategy instanceof CommandStrategy cs) {
-            return cs.execute(args.subList(1, args.size()));
+    public ByteBuffer executeInTransaction(List<ByteString> args, SocketChannel clientSocket) {
+        var descriptor = this.commands.get(args.getFirst());
+        if (descriptor == null) {
+            return null;
+        }
+        if (!descriptor.command().acceptsArgumentCount(args.size())) {
+            this.commandStats.reject(descriptor.command());
+            return wrongArity(descriptor);
         }
 
-        if (strategy instanceof TransactionalCommandStrategy tcs) {
-            return tcs.execute(args.subList(1, args.size()), clientSocket);
+        var start = System.nanoTime();
+        ByteBuffer reply = null;
+        try {
+            reply = descriptor.executor().executeInTransaction(args.subList(1, args.size()), clientSocket);
+            return reply;
+        } catch (RuntimeException e) {
+            log.error("Command {} failed in a transaction", descriptor.name(), e);
+            reply = encodeSimpleError(Errors.COMMAND_FAIL);
+            return reply;
+        } finally {
+            this.commandStats.record(descriptor.command(), System.nanoTime() - start, reply == null || isError(reply));
         }
-        // todo what happens here?
-        return null;
     }
 
+    private static ByteBuffer unknownCommand(ByteString name) {
+        return encodeSimpleError(String.format("Command %s does not exist", name.toString().toUpperCase()));
+    }
+
+    private static ByteBuffer wrongArity(CommandDescriptor descriptor) {
+        return encodeSimpleError(String.format(Errors.WRONG_ARITY, descriptor.name()));
+    }
 
     /**
-     * Flags a client as waiting
-     * @param key the key for which the client is waiting
+     * Flags a client as waiting on every key it is interested in
      * @param blockedClient the blocked client
      */
     @Override
-    public void registerBlockingClient(String key, BlockedClient blockedClient) {
-        this.waitingClients.computeIfAbsent(key, _ -> new LinkedList<>());
-        this.waitingClients.get(key).add(blockedClient);
+    public void registerBlockingClient(BlockedClient blockedClient) {
+        // the keys stay in the waiting lists after the client's read buffer is reused
+        blockedClient.setKeys(ByteString.copyAll(blockedClient.getKeys()));
+        blockedClient.getKeys().forEach(key ->
+                this.waitingClients.computeIfAbsent(key, _ -> new LinkedList<>()).add(blockedClient)
+        );
+        this.blockedClientTimeouts.schedule(blockedClient);
+        this.clientRegistry.setBlocked(blockedClient.getChannel(), true);
     }
 
     @Override
-    public void unblockClient(String key, Command waitingFor, UnblockingMethod method) {
+    public void unblockClient(ByteString key, Command waitingFor, UnblockingMethod method) {
         var waitingClients = this.waitingClients.get(key);
-        if (waitingClients != null && !waitingClients.isEmpty()) {
-            log.debug("get client to unblock");
-            var unblockedClient = this.waitingClients.get(key).removeFirst();
+        if (waitingClients == null || waitingClients.isEmpty()) {
+            return;
+        }
 
-            if (unblockedClient != null) {
+        log.debug("get client to unblock");
+        if (method == UnblockingMethod.ALL) {
+            for (var unblockedClient : new ArrayList<>(waitingClients)) {
+                releaseBlockedClient(unblockedClient);
                 executeUnblockingCommand(key, waitingFor, unblockedClient);
             }
+            return;
         }
+
+        var unblockedClient = waitingClients.getFirst();
+        releaseBlockedClient(unblockedClient);
+        executeUnblockingCommand(key, waitingFor, unblockedClient);
+    }
+
+    /**
+     * Periodic housekeeping of the store: runs one active expiry cycle, publishes the expiry stats
+     * reported by INFO, and samples the memory usage so that its peak is tracked between reports.
+     * Called every {@link ActiveExpiry#CYCLE_INTERVAL_MILLIS}, under the execution lock.
+     */
+    public void serverCron() {
+        this.activeExpiry.runCycle();
+        this.memoryStats.snapshot();
+        this.stats.put(Configuration.EXPIRED_KEYS, String.valueOf(this.kvStore.getExpiredKeys()));
+        this.stats.put(Configuration.EXPIRED_STALE_PERC, String.format(Locale.ROOT, "%.2f", this.activeExpiry.getStalePercent()));
+    }
+
+    /**
+     * Releases every blocked client whose deadline has passed, replying with a null list.
+     * @param nowMillis the current time in epoch millis
+     */
+    public void releaseTimedOutClients(long nowMillis) {
+        BlockedClient timedOutClient;
+        while ((timedOutClient = this.blockedClientTimeouts.pollExpired(nowMillis)) != null) {
+            releaseBlockedClient(timedOutClient);
+            sendResponse(timedOutClient.getChannel(), nullList());
+        }
+    }
+
+    /**
+     * @param nowMillis the current time in epoch millis
+     * @return milliseconds until the next blocked client times out, 0 if one is already due,
+     * or -1 if no blocked client has a timeout
+     */
+    public long millisUntilNextTimeout(long nowMillis) {
+        var nextDeadline = this.blockedClientTimeouts.nextDeadline();
+        if (nextDeadline < 0) {
+            return -1;
+        }
+        return Math.max(nextDeadline - nowMillis, 0);
+    }
+
+    private void releaseBlockedClient(BlockedClient blockedClient) {
+        blockedClient.setReleased(true);
+        blockedClient.getKeys().forEach(key -> {
+            var waitingClients = this.waitingClients.get(key);
+            if (waitingClients != null) {
+                waitingClients.remove(blockedClient);
+                if (waitingClients.isEmpty()) {
+                    this.waitingClients.remove(key);
+                }
+            }
+        });
+        this.blockedClientTimeouts.cancel(blockedClient);
+        this.clientRegistry.setBlocked(blockedClient.getChannel(), false);
     }
 
     @Override
-    public void updateStreamIdForBlockedClient(String key, String lastStreamId) {
+    public void updateStreamIdForBlockedClient(ByteString key, String lastStreamId) {
         if (this.waitingClients.get(key) != null) {
             var blockedClients = this.waitingClients.get(key);
             blockedClients.forEach(client -> {
@@ -163,35 +368,27 @@ public class CommandHandler implements BlockingClientManager, TransactionManager
         }
     }
 
-    private void executeUnblockingCommand(String key, Command waitingFor, BlockedClient client) {
+    private void executeUnblockingCommand(ByteString key, Command waitingFor, BlockedClient client) {
         var channel = client.getChannel();
 
         switch (waitingFor) {
             case LPOP -> {
-                var pop = (LPOPStrategy) this.strategies.get(LPOP);
-                var removedItem = pop.execute(key);
+                var removedItem = this.lpop.execute(key);
                 if (removedItem != null) {
                     var response = Arrays.asList(key, removedItem);
-                    sendResponse(
-                            channel,
-                            ByteBuffer.wrap(
-                                    ProtocolUtils.encode(response).getBytes())
-                    );
+                    sendResponse(channel, ProtocolUtils.encodeBulkList(response));
                 }
             }
             case XREAD -> {
-                var readStream = (XREADStrategy) this.strategies.get(XREAD);
                 // todo implement count
-                ByteBuffer response;
-                response = readStream.execute(client.getKeys(), client.getIds(), 1);
+                var response = this.xread.execute(client.getKeys(), client.getIds(), 1);
                 sendResponse(channel, response);
             }
             case NO_COMMAND ->
                 sendResponse(
                         channel,
                         // TODO what if other command wants to return something else?
-                        ByteBuffer.wrap(
-                                ProtocolUtils.encode(NULL_LIST).getBytes())
+                        nullList()
                         );
             default -> throw new IllegalStateException("Unexpected value: " + waitingFor);
         }
@@ -199,17 +396,40 @@ public class CommandHandler implements BlockingClientManager, TransactionManager
 
     @Override
     public void sendResponse(SocketChannel channel, ByteBuffer response) {
+        recordAsyncReply(channel, isError(response));
+        asyncCommandObserver.onResponseReady(channel, response);
+    }
+
+    @Override
+    public void sendResponse(SocketChannel channel, ChunkedReply response) {
+        recordAsyncReply(channel, response.isError());
         asyncCommandObserver.onResponseReady(channel, response);
     }
 
+    /**
+     * Marks the asynchronous command being executed as failed when its client is replied an error.
+     * Replies to other clients, like blocked clients being served, do not count.
+     */
+    private void recordAsyncReply(SocketChannel channel, boolean error) {
+        if (error && channel == this.asyncCaller) {
+            this.asyncCallerFailed = true;
+        }
+    }
+
     @Override
-    public ByteBuffer onExecuteTransaction(List<List<String>> commandList, SocketChannel channel) {
-        var transactionResult = new ArrayList<ByteBuffer>();
+    public void onExecuteTransaction(List<List<ByteString>> commandList, SocketChannel channel) {
+        var transactionResult = new ArrayList<ByteBuffer>(commandList.size() + 1);
+        transactionResult.add(encodeArrayHeader(commandList.size()));
         commandList.forEach(command -> {
                 var commandResult = executeInTransaction(command, channel);
+                if (commandResult == null) {
+                    commandResult = encodeSimpleError(
+                            String.format("Command %s does not exist", command.getFirst())
+                    );
+                }
                 transactionResult.add(commandResult);
         });
 
-        return encodeTransaction(transactionResult);
+        asyncCommandObserver.onResponseReady(channel, transactionResult);
     }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package commands;
 
+import store.types.ByteString;
+
 import java.nio.ByteBuffer;
 import java.util.List;
 
 public interface CommandStrategy {
-    ByteBuffer execute(List<String> args);
+    ByteBuffer execute(List<ByteString> args);
 }
@@ -0,0 +1,100 @@
+package commands;
+
+import store.types.ByteString;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds a command's descriptor from the raw bytes of its name, ignoring case.
+ * The names are hashed into an open addressing table at least four times larger than the number
+ * of commands, so a lookup hashes the name once and usually compares it with a single candidate,
+ * without decoding or upper-casing it first.
+ */
+public final class CommandTable {
+    private final List<CommandDescriptor> descriptors;
+    private final CommandDescriptor[] slots;
+    private final int mask;
+    private final int maxNameLength;
+
+    public CommandTable(Collection<CommandDescriptor> descriptors) {
+        var capacity = Integer.highestOneBit(Math.max(descriptors.size(), 1) * 4 - 1) << 1;
+        this.descriptors = List.copyOf(descriptors);
+        this.slots = new CommandDescriptor[capacity];
+        this.mask = capacity - 1;
+
+        var maxNameLength = 0;
+        for (var descriptor : descriptors) {
+            var name = descriptor.name();
+            // not get(), which rejects every name until the longest one is known
+            if (find(ByteString.of(name)) != null) {
+                throw new IllegalArgumentException("Command " + name + " is registered twice");
+            }
+            var slot = hash(name) & this.mask;
+            while (this.slots[slot] != null) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.slots[slot] = descriptor;
+            maxNameLength = Math.max(maxNameLength, name.length());
+        }
+        this.maxNameLength = maxNameLength;
+    }
+
+    /**
+     * @param name the command name sent by the client, in any case
+     * @return the command's descriptor, or null if there is no such command
+     */
+    public CommandDescriptor get(ByteString name) {
+        if (name.length() > this.maxNameLength) {
+            return null;
+        }
+        return find(name);
+    }
+
+    private CommandDescriptor find(ByteString name) {
+        var slot = hash(name) & this.mask;
+        CommandDescriptor descriptor;
+        while ((descriptor = this.slots[slot]) != null) {
+            if (name.equalsIgnoreCase(descriptor.name())) {
+                return descriptor;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return null;
+    }
+
+    /**
+     * @return every command, in the order they were registered
+     */
+    public List<CommandDescriptor> descriptors() {
+        return this.descriptors;
+    }
+
+    public int size() {
+        return this.descriptors.size();
+    }
+
+    /**
+     * Hashes the bytes with their ASCII letters folded to lower case. Other bytes may fold
+     * onto each other too, which only costs a comparison since the name is checked on a match.
+     */
+    private static int hash(ByteString name) {
+        var hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + (name.byteAt(i) | 0x20);
+        }
+        return spread(hash);
+    }
+
+    private static int hash(String name) {
+        var hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + ((byte) name.charAt(i) | 0x20);
+        }
+        return spread(hash);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -14,23 +14,29 @@ public class Errors {
     public static final String COMMAND_FAIL = "Command could not be executed.";
     public static final String UNBALANCED_XREAD = "ERR Unbalanced 'xread' list of streams: for each stream key an ID, '+', or '$' must be specified.";
     public static final String TIMEOUT_INVALID = "ERR timeout is not an integer or out of range";
+    public static final String TIMEOUT_NOT_A_FLOAT = "ERR timeout is not a float or out of range";
     public static final String SYNTAX_ERROR = "ERR syntax error";
     public static final String INVALID_ARGS_NUMBER = "ERR wrong number of arguments for command";
+    public static final String WRONG_ARITY = "ERR wrong number of arguments for '%s' command";
     public static final String NOT_AN_INTEGER = "ERR value is not an integer or out of range";
     public static final String NESTED_TRANSACTIONS_ERROR = "ERR MULTI calls can not be nested";
     public static final String EXEC_WITHOUT_TRANSACTION = "ERR EXEC without MULTI";
     public static final String DISCARD_WITHOUT_TRANSACTION = "ERR DISCARD without MULTI";
+    public static final String NO_SUCH_CLIENT = "ERR No such client";
+    public static final String INVALID_CLIENT_NAME = "ERR Client names cannot contain spaces, newlines or special characters.";
+    public static final String UNKNOWN_SUBCOMMAND = "ERR unknown subcommand '%s'.";
+    public static final String INVALID_COMMAND = "ERR Invalid command specified";
+    public static final String INVALID_COMMAND_ARGS_NUMBER = "ERR Invalid number of arguments specified for command";
+    public static final String NO_KEY_ARGUMENTS = "ERR The command has no key arguments";
 
-    public static ByteBuffer checkArgNumber(List<String> args, int minArgs) {
+    public static ByteBuffer checkArgNumber(List<?> args, int minArgs) {
         return checkArgNumber(args, minArgs, Integer.MAX_VALUE);
     }
 
-    public static ByteBuffer checkArgNumber(List<String> args, int minArgs, int maxArgs) {
+    public static ByteBuffer checkArgNumber(List<?> args, int minArgs, int maxArgs) {
         if (args.size() < minArgs || args.size() > maxArgs) {
             log.error(INVALID_ARGS_NUMBER);
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(INVALID_ARGS_NUMBER).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(INVALID_ARGS_NUMBER);
         }
         return null;
     }
@@ -1,13 +1,11 @@
 package commands;
 
-import server.Configuration;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.stream.Stream;
 
 public class ProtocolUtils {
     public static String TERMINATOR = "\r\n";
@@ -25,122 +23,127 @@ public class ProtocolUtils {
 
     public static String OK = "+OK\r\n";
     public static String QUEUED = "+QUEUED\r\n";
+    public static String PONG = "+PONG\r\n";
 
+    /**
+     * Integer replies from 0 up to this bound are encoded once and shared, like redis' shared integers.
+     */
+    public static final int SHARED_INTEGERS = 10000;
+
+    // shared replies are read-only, every caller gets its own duplicate since writing moves the position
+    private static final ByteBuffer OK_REPLY = shared(OK);
+    private static final ByteBuffer QUEUED_REPLY = shared(QUEUED);
+    private static final ByteBuffer PONG_REPLY = shared(PONG);
+    private static final ByteBuffer NULL_STRING_REPLY = shared(NULL_STRING);
+    private static final ByteBuffer NULL_LIST_REPLY = shared(NULL_LIST);
+    private static final ByteBuffer[] INTEGER_REPLIES = sharedIntegers();
+
+    public static ByteBuffer ok() {
+        return OK_REPLY.duplicate();
+    }
+
+    public static ByteBuffer queued() {
+        return QUEUED_REPLY.duplicate();
+    }
+
+    public static ByteBuffer pong() {
+        return PONG_REPLY.duplicate();
+    }
+
+    public static ByteBuffer nullString() {
+        return NULL_STRING_REPLY.duplicate();
+    }
+
+    public static ByteBuffer nullList() {
+        return NULL_LIST_REPLY.duplicate();
+    }
 
     /**
      * String encoder for supported data types
      * @param arg the argument to be encoded
-     * @return the RESP encoded argument
+     * @return a buffer holding the RESP encoded argument, ready to be written
      */
-    public static String encode(String arg) {
-        return bulkEncode(arg, BULK_STRING);
+    public static ByteBuffer encode(String arg) {
+        return new RespWriter(RespWriter.bulkSize(RespWriter.utf8Length(arg))).bulk(arg).toBuffer();
     }
 
 
     /**
-     * Integer encoder for supported data types
+     * Integer encoder for supported data types. Small non-negative integers are shared and not allocated
      * @param number the argument to be encoded
-     * @return the RESP encoded argument
+     * @return a buffer holding the RESP encoded argument, ready to be written
      */
-    public static String encode(Number number) {
-        return simpleEncode(number, NUMBER);
+    public static ByteBuffer encode(long number) {
+        if (number >= 0 && number < SHARED_INTEGERS) {
+            return INTEGER_REPLIES[(int) number].duplicate();
+        }
+        return new RespWriter(1 + RespWriter.decimalLength(number) + 2).integer(number).toBuffer();
     }
 
     /**
-     * Integer encoder for supported data types
+     * List encoder for supported data types
      * @param list the argument to be encoded
-     * @return the RESP encoded argument
+     * @return a buffer holding the RESP encoded argument, ready to be written
      */
-    public static String encode(List<String> list) {
-        var sb = new StringBuilder();
-        sb.append(LIST).append(list.size()).append(TERMINATOR);
+    public static ByteBuffer encode(List<String> list) {
+        var size = 1 + RespWriter.decimalLength(list.size()) + 2;
         for (var item : list) {
-            sb.append(bulkEncode(item, BULK_STRING));
+            size += RespWriter.bulkSize(RespWriter.utf8Length(item));
         }
-        return sb.toString();
-    }
 
-    public static ByteBuffer encodeTransaction(List<ByteBuffer> results) {
-        var sb = new StringBuilder();
-        sb.append(LIST).append(results.size()).append(TERMINATOR);
-
-        results.forEach(result -> {
-            sb.append(new String(result.array(), StandardCharsets.UTF_8));
-        });
-        return ByteBuffer.wrap(sb.toString().getBytes());
+        var writer = new RespWriter(size).arrayHeader(list.size());
+        for (var item : list) {
+            writer.bulk(item);
+        }
+        return writer.toBuffer();
     }
 
-
     /**
-     * Method used for encoding streams.
-     * The response is a list a streams, where each stream is represented by a list.
-     * This list contains:
-     *      1. stream id as string type
-     *      2. a list containing the stream's values ( ["key", "value"] )
-     * @param stream the stream to encode
-     * @return a string holding the encoded response
+     * Binary-safe bulk string encoder, writing the value's bytes as they are
+     * @param value the value to be encoded
+     * @return a buffer holding the RESP encoded value, ready to be written
      */
-    public static String encodeStream(SortedMap<String, Map<String, String>> stream) {
-        if (stream.isEmpty()) {
-            return NULL_LIST;
-        }
-
-        var sb = new StringBuilder();
-        sb.append(LIST).append(stream.size()).append(TERMINATOR);
-        stream.forEach( (id, entry) -> {
-            // always an id and a stream entry => 2 items
-            sb.append(LIST).append(2).append(TERMINATOR);
-
-            sb.append(bulkEncode(id, BULK_STRING));
-
-            var entryList = entry.entrySet().stream()
-                    .flatMap(e -> Stream.of(e.getKey(), e.getValue()))
-                    .toList();
-            sb.append(encode(entryList));
-        });
-
-        return sb.toString();
+    public static ByteBuffer encodeBulk(ByteString value) {
+        return new RespWriter(RespWriter.bulkSize(value.length())).bulk(value).toBuffer();
     }
 
     /**
-     * Method used for encoding expected response for the XREAD operation.
-     * The response is a list containing lists. These lists contain:
-     *      1. redis object key as string type
-     *      2. a list of streams
-     *
-     * @param streamCollection a structure mapping each redis object key to its streams
-     * @param keys the key list as provided by the client to preserve the ordering in the response
-     * @return a string holding the encoded response
+     * Binary-safe encoder for an array of bulk strings
+     * @param values the values to be encoded
+     * @return a buffer holding the RESP encoded array, ready to be written
      */
-    public static String encodeStreamList(Map<String, SortedMap<String, Map<String, String>>> streamCollection,
-                                          List<String> keys) {
-        if (streamCollection.isEmpty()) {
-            return NULL_LIST;
+    public static ByteBuffer encodeBulkList(List<ByteString> values) {
+        var size = 1 + RespWriter.decimalLength(values.size()) + 2;
+        for (var value : values) {
+            size += RespWriter.bulkSize(value.length());
         }
 
-        var sb = new StringBuilder();
-        sb.append(LIST).append(streamCollection.size()).append(TERMINATOR);
-        keys.forEach( key -> {
-            if (streamCollection.containsKey(key)) {
-                sb.append(LIST).append(2).append(TERMINATOR);
-                sb.append(bulkEncode(key, BULK_STRING));
-
-                sb.append(encodeStream(streamCollection.get(key)));
-            }
-        });
+        var writer = new RespWriter(size).arrayHeader(values.size());
+        for (var value : values) {
+            writer.bulk(value);
+        }
+        return writer.toBuffer();
+    }
 
-        return sb.toString();
+    /**
+     * Encodes only the header of an array, its elements being sent as separate buffers.
+     * @param size the number of elements
+     * @return a buffer holding the RESP encoded header, ready to be written
+     */
+    public static ByteBuffer encodeArrayHeader(int size) {
+        return new RespWriter(1 + RespWriter.decimalLength(size) + 2).arrayHeader(size).toBuffer();
     }
 
-    public static String encodeConfigurationSection(Map<String, String> section) {
+
+    public static ByteBuffer encodeConfigurationSection(Map<String, String> section) {
         var sb = new StringBuilder();
         section.forEach( (config, value) -> {
             sb.append(config).append(":").append(value).append(TERMINATOR);
         });
-        return bulkEncode(sb.toString(), BULK_STRING);
+        return encode(sb.toString());
     }
 
-    public static String encodeFullConfiguration(Map<String, Map<String, String>> fullConfig) {
+    public static ByteBuffer encodeFullConfiguration(Map<String, Map<String, String>> fullConfig) {
         var sb = new StringBuilder();
         fullConfig.forEach( (section, sectionConfig) -> {
             sb.append("# ").append(section).append(TERMINATOR);
@@ -148,40 +151,57 @@ public class ProtocolUtils {
                 sb.append(config).append(":").append(value).append(TERMINATOR);
             });
         });
-        return bulkEncode(sb.toString(), BULK_STRING);
+        return encode(sb.toString());
     }
 
 
-    public static String encodeSimpleError(String message) {
-        return simpleEncode(message, SIMPLE_ERROR);
+    public static ByteBuffer encodeSimpleError(String message) {
+        return new RespWriter(1 + RespWriter.utf8Length(message) + 2).error(message).toBuffer();
     }
 
-    public static String encodeBulkError(String message) {
-        return bulkEncode(message, BULK_ERROR);
+    public static ByteBuffer encodeBulkError(String message) {
+        return new RespWriter(RespWriter.bulkSize(RespWriter.utf8Length(message))).bulkError(message).toBuffer();
     }
 
-    private static String simpleEncode(Object arg, String prefix) {
-        return prefix + arg + TERMINATOR;
+    /**
+     * @param reply an encoded reply, in read mode
+     * @return whether the reply is a simple or bulk error
+     */
+    public static boolean isError(ByteBuffer reply) {
+        if (!reply.hasRemaining()) {
+            return false;
+        }
+        var type = reply.get(reply.position());
+        return type == '-' || type == '!';
     }
 
-    private static String bulkEncode(String arg, String prefix) {
-        return prefix +
-                arg.length() +
-                TERMINATOR +
-                arg +
-                TERMINATOR;
+    private static ByteBuffer shared(String reply) {
+        return ByteBuffer.wrap(reply.getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
     }
 
-}
-
-
-
-
-
-
-
-
-
-
+    /**
+     * Encodes all the shared integers into a single array, each reply being a read-only slice of it.
+     */
+    private static ByteBuffer[] sharedIntegers() {
+        var size = 0;
+        for (int i = 0; i < SHARED_INTEGERS; i++) {
+            size += 1 + RespWriter.decimalLength(i) + 2;
+        }
 
+        var writer = new RespWriter(size);
+        for (int i = 0; i < SHARED_INTEGERS; i++) {
+            writer.integer(i);
+        }
+        var encoded = writer.toBuffer().asReadOnlyBuffer();
+
+        var replies = new ByteBuffer[SHARED_INTEGERS];
+        var offset = 0;
+        for (int i = 0; i < SHARED_INTEGERS; i++) {
+            var length = 1 + RespWriter.decimalLength(i) + 2;
+            replies[i] = encoded.slice(offset, length);
+            offset += length;
+        }
+        return replies;
+    }
 
+}
@@ -0,0 +1,271 @@
+package commands;
+
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes RESP replies straight into a buffer, without building intermediate strings.
+ * Integers and lengths are formatted digit by digit and text is encoded to UTF-8 in place.
+ * The buffer grows when needed, so replies whose size is known upfront should pass it
+ * to the constructor and get a single, exactly sized allocation.
+ */
+public class RespWriter {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Array and bulk string headers below this size are encoded once and copied, not formatted.
+     */
+    public static final int SHARED_HEADERS = 1024;
+    private static final byte[][] ARRAY_HEADERS = sharedHeaders('*');
+    private static final byte[][] BULK_HEADERS = sharedHeaders('$');
+
+    private ByteBuffer buffer;
+
+    public RespWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the initial size of the reply, exact when known
+     */
+    public RespWriter(int capacity) {
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Writes a simple string such as +OK.
+     * @param value the string, it must not contain CR or LF
+     */
+    public RespWriter simpleString(String value) {
+        return line('+', value);
+    }
+
+    /**
+     * Writes a simple error such as -ERR message.
+     * @param message the error message, it must not contain CR or LF
+     */
+    public RespWriter error(String message) {
+        return line('-', message);
+    }
+
+    /**
+     * Writes a bulk error, !length followed by the message.
+     */
+    public RespWriter bulkError(String message) {
+        return bulk('!', message);
+    }
+
+    public RespWriter integer(long value) {
+        ensureCapacity(1 + decimalLength(value) + 2);
+        this.buffer.put((byte) ':');
+        writeDecimal(value);
+        return crlf();
+    }
+
+    public RespWriter bulk(ByteString value) {
+        ensureCapacity(bulkSize(value.length()));
+        writeHeader(BULK_HEADERS, '$', value.length());
+        value.writeTo(this.buffer);
+        return crlf();
+    }
+
+    /**
+     * Writes a bulk string holding the UTF-8 encoding of a text value.
+     */
+    public RespWriter bulk(String value) {
+        return bulk('$', value);
+    }
+
+    public RespWriter nullBulk() {
+        ensureCapacity(5);
+        this.buffer.put((byte) '$').put((byte) '-').put((byte) '1');
+        return crlf();
+    }
+
+    /**
+     * Writes the header of an array, its elements have to be written next.
+     * @param size the number of elements
+     */
+    public RespWriter arrayHeader(int size) {
+        ensureCapacity(1 + decimalLength(size) + 2);
+        writeHeader(ARRAY_HEADERS, '*', size);
+        return this;
+    }
+
+    public RespWriter nullArray() {
+        ensureCapacity(5);
+        this.buffer.put((byte) '*').put((byte) '-').put((byte) '1');
+        return crlf();
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    public int size() {
+        return this.buffer.position();
+    }
+
+    /**
+     * @return the reply, ready to be written. The writer must not be used afterwards
+     */
+    public ByteBuffer toBuffer() {
+        return this.buffer.flip();
+    }
+
+    /**
+     * @return the number of characters needed to print the value in base 10, including the sign
+     */
+    public static int decimalLength(long value) {
+        if (value == Long.MIN_VALUE) {
+            return MIN_LONG.length;
+        }
+        var length = 1;
+        if (value < 0) {
+            length++;
+            value = -value;
+        }
+        while (value >= 10) {
+            value /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * @param length the length of the bulk string's content
+     * @return the size of the encoded bulk string, header and terminators included
+     */
+    public static int bulkSize(int length) {
+        return 1 + decimalLength(length) + 2 + length + 2;
+    }
+
+    /**
+     * Computes the length of a string once encoded in UTF-8, without encoding it.
+     * Unpaired surrogates count as one byte, they are encoded as '?'.
+     */
+    public static int utf8Length(String value) {
+        var length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else {
+                    length += 1;
+                }
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private RespWriter line(char prefix, String value) {
+        ensureCapacity(1 + utf8Length(value) + 2);
+        this.buffer.put((byte) prefix);
+        writeUtf8(value);
+        return crlf();
+    }
+
+    private RespWriter bulk(char prefix, String value) {
+        var length = utf8Length(value);
+        ensureCapacity(bulkSize(length));
+        if (prefix == '$') {
+            writeHeader(BULK_HEADERS, prefix, length);
+        } else {
+            this.buffer.put((byte) prefix);
+            writeDecimal(length);
+            crlf();
+        }
+        writeUtf8(value);
+        return crlf();
+    }
+
+    private void writeHeader(byte[][] shared, char prefix, int length) {
+        if (length < shared.length) {
+            this.buffer.put(shared[length]);
+            return;
+        }
+        this.buffer.put((byte) prefix);
+        writeDecimal(length);
+        crlf();
+    }
+
+    private static byte[][] sharedHeaders(char prefix) {
+        var headers = new byte[SHARED_HEADERS][];
+        for (int i = 0; i < SHARED_HEADERS; i++) {
+            headers[i] = (prefix + Integer.toString(i) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        }
+        return headers;
+    }
+
+    private RespWriter crlf() {
+        this.buffer.put((byte) '\r').put((byte) '\n');
+        return this;
+    }
+
+    /**
+     * Writes the digits from the last one backwards, the space is reserved by the caller.
+     */
+    private void writeDecimal(long value) {
+        if (value == Long.MIN_VALUE) {
+            this.buffer.put(MIN_LONG);
+            return;
+        }
+
+        var end = this.buffer.position() + decimalLength(value);
+        if (value < 0) {
+            this.buffer.put((byte) '-');
+            value = -value;
+        }
+        var i = end;
+        do {
+            this.buffer.put(--i, (byte) ('0' + value % 10));
+            value /= 10;
+        } while (value > 0);
+        this.buffer.position(end);
+    }
+
+    private void writeUtf8(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c < 0x80) {
+                this.buffer.put((byte) c);
+            } else if (c < 0x800) {
+                this.buffer.put((byte) (0xC0 | (c >> 6)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    var codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    this.buffer.put((byte) (0xF0 | (codePoint >> 18)))
+                            .put((byte) (0x80 | ((codePoint >> 12) & 0x3F)))
+                            .put((byte) (0x80 | ((codePoint >> 6) & 0x3F)))
+                            .put((byte) (0x80 | (codePoint & 0x3F)));
+                } else {
+                    this.buffer.put((byte) '?');
+                }
+            } else {
+                this.buffer.put((byte) (0xE0 | (c >> 12)))
+                        .put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (this.buffer.remaining() >= needed) {
+            return;
+        }
+        var grown = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + needed));
+        this.buffer = grown.put(this.buffer.flip());
+    }
+}
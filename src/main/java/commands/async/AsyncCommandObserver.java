@@ -1,9 +1,27 @@
 package commands.async;
 
+import commands.ChunkedReply;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.List;
 
 public interface AsyncCommandObserver {
 
     void onResponseReady(SocketChannel channel, ByteBuffer response);
+
+    /**
+     * Registers a response made of several buffers, e.g. an array header followed by already encoded elements.
+     * The parts are written one after the other with gathering writes, without being copied together,
+     * and they count as a single response.
+     * @param channel client's socket channel
+     * @param response the parts of the response, in order
+     */
+    void onResponseReady(SocketChannel channel, List<ByteBuffer> response);
+
+    /**
+     * Registers a response that is encoded chunk by chunk, as the client's output drains.
+     * @param channel client's socket channel
+     * @param response the response
+     */
+    void onResponseReady(SocketChannel channel, ChunkedReply response);
 }
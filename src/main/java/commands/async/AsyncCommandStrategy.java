@@ -1,9 +1,11 @@
 package commands.async;
 
+import store.types.ByteString;
+
 import java.nio.channels.SocketChannel;
 import java.util.List;
 
 public interface AsyncCommandStrategy {
 
-    void executeAsync(List<String> args, SocketChannel clientChannel);
+    void executeAsync(List<ByteString> args, SocketChannel clientChannel);
 }
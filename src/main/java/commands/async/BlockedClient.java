@@ -2,9 +2,9 @@ package commands.async;
 
 import commands.Command;
 import lombok.*;
+import store.types.ByteString;
 
 import java.nio.channels.SocketChannel;
-import java.time.Instant;
 import java.util.List;
 
 
@@ -16,9 +16,19 @@ import java.util.List;
 public class BlockedClient {
 
     private SocketChannel channel;
-    private Instant timeout;
-    private List<String> keys;
+    // epoch millis after which the client is released with a null reply, 0 to block forever
+    private long deadlineMillis;
+    // copies of the arguments, they outlive the command's read buffer
+    private List<ByteString> keys;
     private List<String> ids;
     private Command executedCommand;
     private UnblockingMethod method;
+    // set once the client is served or timed out, its pending deadline is then ignored
+    private boolean released;
+    // whether the client is still held by the deadline heap, see BlockedClientTimeouts
+    private boolean inHeap;
+
+    public boolean hasDeadline() {
+        return this.deadlineMillis > 0;
+    }
 }
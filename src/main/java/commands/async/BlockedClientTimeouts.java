@@ -0,0 +1,87 @@
+package commands.async;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Deadline heap for blocked clients.
+ * The earliest deadline is available in constant time, and only the clients that are due are expired.
+ * Clients released before their deadline are cancelled lazily: they are skipped when they reach
+ * the head of the heap, and purged in bulk once they make up most of it.
+ * Only clients still in the heap count as cancelled, a client polled out of it on timeout
+ * is released without leaving anything behind.
+ * Not thread-safe, callers hold the command execution lock.
+ */
+public class BlockedClientTimeouts {
+    private static final int PURGE_THRESHOLD = 64;
+
+    private final PriorityQueue<BlockedClient> deadlines =
+            new PriorityQueue<>(Comparator.comparingLong(BlockedClient::getDeadlineMillis));
+    private int cancelled;
+
+    public void schedule(BlockedClient client) {
+        if (client.hasDeadline()) {
+            this.deadlines.add(client);
+            client.setInHeap(true);
+        }
+    }
+
+    /**
+     * Must be called after the client was flagged as released.
+     * @param client the client that no longer waits for its deadline
+     */
+    public void cancel(BlockedClient client) {
+        if (!client.isInHeap()) {
+            return;
+        }
+
+        this.cancelled++;
+        if (this.cancelled > PURGE_THRESHOLD && this.cancelled > this.deadlines.size() / 2) {
+            this.deadlines.removeIf(BlockedClientTimeouts::removeIfReleased);
+            this.cancelled = 0;
+        }
+    }
+
+    /**
+     * @return the earliest pending deadline in epoch millis, or -1 if no client is waiting on one
+     */
+    public long nextDeadline() {
+        discardReleasedHead();
+        var head = this.deadlines.peek();
+        return head != null ? head.getDeadlineMillis() : -1;
+    }
+
+    /**
+     * Removes and returns the next client whose deadline has passed.
+     * @param nowMillis the current time in epoch millis
+     * @return a timed out client, or null if none is due
+     */
+    public BlockedClient pollExpired(long nowMillis) {
+        discardReleasedHead();
+        var head = this.deadlines.peek();
+        if (head == null || head.getDeadlineMillis() > nowMillis) {
+            return null;
+        }
+        head.setInHeap(false);
+        return this.deadlines.poll();
+    }
+
+    public int size() {
+        return this.deadlines.size() - this.cancelled;
+    }
+
+    private void discardReleasedHead() {
+        while (!this.deadlines.isEmpty() && this.deadlines.peek().isReleased()) {
+            this.deadlines.poll().setInHeap(false);
+            this.cancelled--;
+        }
+    }
+
+    private static boolean removeIfReleased(BlockedClient client) {
+        if (client.isReleased()) {
+            client.setInHeap(false);
+            return true;
+        }
+        return false;
+    }
+}
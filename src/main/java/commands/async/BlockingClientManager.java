@@ -1,17 +1,21 @@
 package commands.async;
 
+import commands.ChunkedReply;
 import commands.Command;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 
 public interface BlockingClientManager {
 
-    void registerBlockingClient(String key, BlockedClient blockedClient);
+    void registerBlockingClient(BlockedClient blockedClient);
 
-    void updateStreamIdForBlockedClient(String key, String lastStreamId);
+    void updateStreamIdForBlockedClient(ByteString key, String lastStreamId);
 
-    void unblockClient(String key, Command waitingFor, UnblockingMethod method);
+    void unblockClient(ByteString key, Command waitingFor, UnblockingMethod method);
 
     void sendResponse(SocketChannel channel, ByteBuffer response);
+
+    void sendResponse(SocketChannel channel, ChunkedReply response);
 }
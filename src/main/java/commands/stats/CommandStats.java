@@ -0,0 +1,114 @@
+package commands.stats;
+
+import commands.Command;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per command call counters and latency histograms, reported by INFO commandstats,
+ * INFO latencystats and LATENCY HISTOGRAM.
+ * The statistics of every command are allocated upfront, so recording a call only increments
+ * counters and never allocates.
+ */
+public class CommandStats {
+    private static final double[] REPORTED_PERCENTILES = {50, 99, 99.9};
+
+    private final Stats[] stats;
+
+    /**
+     * Statistics of a single command.
+     * Commands are executed one at a time, so plain atomics see no contention.
+     */
+    @Getter
+    public static class Stats {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong durationNanos = new AtomicLong();
+        // executed but replied with an error
+        private final AtomicLong failedCalls = new AtomicLong();
+        // refused before being executed, such as calls with a wrong number of arguments
+        private final AtomicLong rejectedCalls = new AtomicLong();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+    }
+
+    public CommandStats() {
+        this.stats = new Stats[Command.values().length];
+        for (int i = 0; i < this.stats.length; i++) {
+            this.stats[i] = new Stats();
+        }
+    }
+
+    /**
+     * @param durationNanos how long the command took to execute
+     * @param failed whether the command replied with an error
+     */
+    public void record(Command command, long durationNanos, boolean failed) {
+        var stats = this.stats[command.ordinal()];
+        stats.calls.incrementAndGet();
+        stats.durationNanos.addAndGet(durationNanos);
+        stats.histogram.record(durationNanos);
+        if (failed) {
+            stats.failedCalls.incrementAndGet();
+        }
+    }
+
+    public void reject(Command command) {
+        this.stats[command.ordinal()].rejectedCalls.incrementAndGet();
+    }
+
+    public Stats get(Command command) {
+        return this.stats[command.ordinal()];
+    }
+
+    /**
+     * @return a cmdstat_[command] line for every command called at least once,
+     * calls=...,usec=...,usec_per_call=...,rejected_calls=...,failed_calls=...
+     */
+    public Map<String, String> commandStatsSection() {
+        var section = new LinkedHashMap<String, String>();
+        for (var command : Command.values()) {
+            var stats = get(command);
+            var calls = stats.calls.get();
+            var rejected = stats.rejectedCalls.get();
+            if (calls == 0 && rejected == 0) {
+                continue;
+            }
+            var usec = stats.durationNanos.get() / 1000;
+            section.put("cmdstat_" + command, String.format(Locale.ROOT,
+                    "calls=%d,usec=%d,usec_per_call=%.2f,rejected_calls=%d,failed_calls=%d",
+                    calls, usec, calls == 0 ? 0.0 : (double) usec / calls, rejected, stats.failedCalls.get()));
+        }
+        return section;
+    }
+
+    /**
+     * @return a latency_percentiles_usec_[command] line for every command called at least once,
+     * p50=...,p99=...,p99.9=...
+     */
+    public Map<String, String> latencyStatsSection() {
+        var section = new LinkedHashMap<String, String>();
+        for (var command : Command.values()) {
+            var stats = get(command);
+            if (stats.calls.get() == 0) {
+                continue;
+            }
+            var percentiles = new StringBuilder();
+            for (var percentile : REPORTED_PERCENTILES) {
+                if (!percentiles.isEmpty()) {
+                    percentiles.append(',');
+                }
+                percentiles.append('p').append(formatPercentile(percentile)).append('=')
+                        .append(String.format(Locale.ROOT, "%.3f", stats.histogram.valueAtPercentile(percentile) / 1000.0));
+            }
+            section.put("latency_percentiles_usec_" + command, percentiles.toString());
+        }
+        return section;
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+}
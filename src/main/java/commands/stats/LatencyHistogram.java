@@ -0,0 +1,132 @@
+package commands.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, with logarithmic buckets in the spirit of HdrHistogram.
+ * Each power of two is split into {@link #SUB_BUCKETS} linear buckets, so a recorded value is known
+ * within about 3% whatever its magnitude, and the whole range up to {@link #MAX_TRACKABLE} fits
+ * in {@link #BUCKETS} counters. Recording finds the bucket with a few shifts and increments one
+ * counter, without allocating. Reads are not atomic with respect to concurrent recordings,
+ * which is fine for statistics.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * About 68 seconds, longer durations are counted in the last bucket.
+     */
+    public static final long MAX_TRACKABLE = (1L << 36) - 1;
+    static final int BUCKETS = bucketIndex(MAX_TRACKABLE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * A bucket of the histogram reported by LATENCY HISTOGRAM.
+     * @param upperBoundMicros the bucket's upper bound, in microseconds
+     * @param cumulativeCount the number of durations up to that bound
+     */
+    public record Bucket(long upperBoundMicros, long cumulativeCount) {
+    }
+
+    public void record(long durationNanos) {
+        this.counts.incrementAndGet(bucketIndex(Math.clamp(durationNanos, 0, MAX_TRACKABLE)));
+    }
+
+    public long count() {
+        var count = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += this.counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the duration in nanoseconds that the given percentage of the recorded durations
+     * does not exceed, 0 when nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        var counts = snapshot();
+        var total = 0L;
+        for (var count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        // the rank is rounded up, minus the error of the floating point product:
+        // 99.9% of 1000 comes out slightly above 999, which would otherwise select the 1000th value
+        var target = Math.max(1, (long) Math.ceil(percentile * total / 100 - 1e-9));
+        var cumulative = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return highestValue(i);
+            }
+        }
+        return MAX_TRACKABLE;
+    }
+
+    /**
+     * Folds the histogram into power of two buckets, starting at 1 microsecond, the way redis reports it.
+     * Only the buckets where the cumulative count grows are listed.
+     */
+    public List<Bucket> powerOfTwoBuckets() {
+        var counts = snapshot();
+        var buckets = new ArrayList<Bucket>();
+        var cumulative = 0L;
+        var previous = 0L;
+        var i = 0;
+        for (long upperBoundMicros = 1; i < BUCKETS; upperBoundMicros <<= 1) {
+            var upperBoundNanos = upperBoundMicros * 1000;
+            while (i < BUCKETS && highestValue(i) <= upperBoundNanos) {
+                cumulative += counts[i++];
+            }
+            if (cumulative != previous) {
+                buckets.add(new Bucket(upperBoundMicros, cumulative));
+                previous = cumulative;
+            }
+        }
+        return buckets;
+    }
+
+    private long[] snapshot() {
+        var snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = this.counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKETS} have a bucket each. Above, the position of the highest bit
+     * selects a group of buckets and the next {@link #SUB_BUCKET_BITS} bits the bucket in the group.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        var shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        var shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        var shift = index / SUB_BUCKETS - 1;
+        return lowestValue(index) + (1L << shift) - 1;
+    }
+}
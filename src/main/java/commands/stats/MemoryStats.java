@@ -0,0 +1,117 @@
+package commands.stats;
+
+import server.ClientInfo;
+import server.ClientRegistry;
+import store.KeyValueStore;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Memory accounting reported by INFO memory, MEMORY STATS and used to size nodes.
+ * The used memory is an estimate of the data structures of the server, not of the JVM heap:
+ * the dataset (keys and values) as maintained by the store on every write, plus the overhead
+ * of the key indexes and of the clients' buffers.
+ * The heap figures are reported alongside, to compare the estimate with what the JVM holds.
+ * Accessed under the execution lock.
+ */
+public class MemoryStats {
+    private final KeyValueStore kvStore;
+    private final ClientRegistry clients;
+    private long peakBytes;
+
+    /**
+     * @param datasetBytes keys and values
+     * @param mainTableBytes the hash table indexing every key
+     * @param expiresBytes the index of the keys with an expiry
+     * @param clientsBytes query and output buffers of the connected clients
+     * @param keys number of keys
+     */
+    public record Snapshot(long datasetBytes, long mainTableBytes, long expiresBytes, long clientsBytes, int keys) {
+        public long overheadBytes() {
+            return this.mainTableBytes + this.expiresBytes + this.clientsBytes;
+        }
+
+        public long usedBytes() {
+            return this.datasetBytes + overheadBytes();
+        }
+    }
+
+    public MemoryStats(KeyValueStore kvStore, ClientRegistry clients) {
+        this.kvStore = kvStore;
+        this.clients = clients;
+    }
+
+    /**
+     * Computes the current figures, and records them as the peak if they are the highest so far.
+     */
+    public Snapshot snapshot() {
+        long clientsBytes = 0;
+        for (ClientInfo client : this.clients.getClients()) {
+            clientsBytes += client.getQueryBufferBytes() + client.getQueryBufferFree() + client.getOutputBytes();
+        }
+        var snapshot = new Snapshot(
+                this.kvStore.getDatasetBytes(),
+                this.kvStore.mainTableOverheadBytes(),
+                this.kvStore.expiresOverheadBytes(),
+                clientsBytes,
+                this.kvStore.size()
+        );
+        this.peakBytes = Math.max(this.peakBytes, snapshot.usedBytes());
+        return snapshot;
+    }
+
+    /**
+     * @return the highest used memory seen by {@link #snapshot()}, which the server cron takes periodically
+     */
+    public long peakBytes() {
+        return this.peakBytes;
+    }
+
+    public Map<String, String> infoSection() {
+        var snapshot = snapshot();
+        var runtime = Runtime.getRuntime();
+        var maxHeap = runtime.maxMemory();
+
+        var section = new LinkedHashMap<String, String>();
+        section.put("used_memory", String.valueOf(snapshot.usedBytes()));
+        section.put("used_memory_human", toHuman(snapshot.usedBytes()));
+        section.put("used_memory_peak", String.valueOf(this.peakBytes));
+        section.put("used_memory_peak_human", toHuman(this.peakBytes));
+        section.put("used_memory_peak_perc", percentage(snapshot.usedBytes(), this.peakBytes) + "%");
+        section.put("used_memory_overhead", String.valueOf(snapshot.overheadBytes()));
+        section.put("used_memory_dataset", String.valueOf(snapshot.datasetBytes()));
+        section.put("used_memory_dataset_perc", percentage(snapshot.datasetBytes(), snapshot.usedBytes()) + "%");
+        section.put("used_memory_clients", String.valueOf(snapshot.clientsBytes()));
+        section.put("jvm_heap_used", String.valueOf(runtime.totalMemory() - runtime.freeMemory()));
+        section.put("jvm_heap_committed", String.valueOf(runtime.totalMemory()));
+        // no -Xmx gives an unbounded max, reported as 0 like an unset maxmemory
+        section.put("jvm_heap_max", String.valueOf(maxHeap == Long.MAX_VALUE ? 0 : maxHeap));
+        return section;
+    }
+
+    /**
+     * @return the share of the total, as a percentage with 2 decimals
+     */
+    public static String percentage(long part, long total) {
+        return String.format(Locale.ROOT, "%.2f", total == 0 ? 0.0 : part * 100.0 / total);
+    }
+
+    /**
+     * @return the size with the largest unit below it, like 1.50M
+     */
+    public static String toHuman(long bytes) {
+        if (bytes < 1024) {
+            return bytes + "B";
+        }
+        var units = "KMGTP";
+        var value = (double) bytes;
+        var unit = -1;
+        while (value >= 1024 && unit < units.length() - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, "%.2f%c", value, units.charAt(unit));
+    }
+}
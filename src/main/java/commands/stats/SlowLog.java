@@ -0,0 +1,110 @@
+package commands.stats;
+
+import store.types.ByteString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The commands that took longer than a threshold to execute, kept in a fixed size ring:
+ * once it is full, every new entry replaces the oldest one.
+ * Checking whether a command is slow costs a single comparison, entries are only built
+ * for commands that are, with their arguments truncated to bound the memory held.
+ * Commands and SLOWLOG itself run under the execution lock, the methods are synchronized
+ * for the readers that do not.
+ */
+public class SlowLog {
+    static final int MAX_ARGS = 32;
+    static final int MAX_ARG_LENGTH = 128;
+
+    /**
+     * @param id unique, increasing identifier of the entry
+     * @param timestamp when the command was executed, in epoch seconds
+     * @param durationMicros how long it took
+     * @param args the command and its arguments, truncated
+     * @param clientAddress ip:port of the client, empty if unknown
+     * @param clientName the client's name, empty if none
+     */
+    public record Entry(long id, long timestamp, long durationMicros, List<String> args,
+                        String clientAddress, String clientName) {
+    }
+
+    private final Entry[] entries;
+    // commands running for at least this long are logged, Long.MAX_VALUE when logging is disabled
+    private final long thresholdNanos;
+    private long nextId;
+    // index of the slot the next entry goes to
+    private int head;
+    private int size;
+
+    /**
+     * @param slowerThanMicros the threshold in microseconds, 0 logs every command and a negative value none
+     * @param maxLength the number of entries kept
+     */
+    public SlowLog(long slowerThanMicros, int maxLength) {
+        this.thresholdNanos = slowerThanMicros < 0 ? Long.MAX_VALUE : slowerThanMicros * 1000;
+        this.entries = new Entry[Math.max(maxLength, 0)];
+    }
+
+    public boolean isSlow(long durationNanos) {
+        return durationNanos >= this.thresholdNanos;
+    }
+
+    /**
+     * @param command the command name followed by its arguments, which do not need to outlive the call
+     */
+    public synchronized void add(List<ByteString> command, long durationNanos, String clientAddress, String clientName) {
+        if (this.entries.length == 0) {
+            return;
+        }
+        this.entries[this.head] = new Entry(this.nextId++, System.currentTimeMillis() / 1000,
+                durationNanos / 1000, truncate(command), clientAddress, clientName);
+        this.head = (this.head + 1) % this.entries.length;
+        this.size = Math.min(this.size + 1, this.entries.length);
+    }
+
+    /**
+     * @param count the maximum number of entries, negative for all of them
+     * @return the most recent entries first
+     */
+    public synchronized List<Entry> get(int count) {
+        var length = count < 0 ? this.size : Math.min(count, this.size);
+        var recent = new ArrayList<Entry>(length);
+        for (int i = 1; i <= length; i++) {
+            recent.add(this.entries[Math.floorMod(this.head - i, this.entries.length)]);
+        }
+        return recent;
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(this.entries, null);
+        this.head = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Keeps at most {@link #MAX_ARGS} arguments of at most {@link #MAX_ARG_LENGTH} bytes,
+     * telling how many were left out the way redis does.
+     */
+    private static List<String> truncate(List<ByteString> command) {
+        var kept = Math.min(command.size(), command.size() > MAX_ARGS ? MAX_ARGS - 1 : MAX_ARGS);
+        var args = new ArrayList<String>(kept + 1);
+        for (int i = 0; i < kept; i++) {
+            var arg = command.get(i);
+            if (arg.length() <= MAX_ARG_LENGTH) {
+                args.add(arg.toString());
+            } else {
+                args.add(arg.substring(0, MAX_ARG_LENGTH) + "... (" + (arg.length() - MAX_ARG_LENGTH) + " more bytes)");
+            }
+        }
+        if (kept < command.size()) {
+            args.add("... (" + (command.size() - kept) + " more arguments)");
+        }
+        return args;
+    }
+}
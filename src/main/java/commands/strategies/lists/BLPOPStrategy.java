@@ -12,15 +12,15 @@ import commands.transaction.TransactionalCommandStrategy;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 
-import static commands.Errors.checkArgNumber;
-import static commands.ProtocolUtils.NULL_STRING;
+import static commands.Errors.TIMEOUT_NOT_A_FLOAT;
+import static commands.ProtocolUtils.nullString;
 
 @Slf4j
 @AllArgsConstructor
@@ -30,15 +30,16 @@ public class BLPOPStrategy implements AsyncCommandStrategy, TransactionalCommand
     private final BlockingClientManager blockingClientManager;
 
     @Override
-    public void executeAsync(List<String> args, SocketChannel client) {
-
-        var err = checkArgNumber(args, 2);
-        if (err != null) {
-            blockingClientManager.sendResponse(client, err);
-        }
+    public void executeAsync(List<ByteString> args, SocketChannel client) {
 
         var key = args.getFirst();
-        var timeout = (long) (Double.parseDouble(args.get(1)) * 1000);
+        long timeout;
+        try {
+            timeout = (long) (Double.parseDouble(args.get(1).toString()) * 1000);
+        } catch (NumberFormatException e) {
+            blockingClientManager.sendResponse(client, ProtocolUtils.encodeSimpleError(TIMEOUT_NOT_A_FLOAT));
+            return;
+        }
 
         try {
             if (kvStore.containsKey(key) && !kvStore.getRange(key, 0, -1).isEmpty()) {
@@ -47,8 +48,7 @@ public class BLPOPStrategy implements AsyncCommandStrategy, TransactionalCommand
 
                 blockingClientManager.sendResponse(
                         client,
-                        ByteBuffer.wrap(
-                                ProtocolUtils.encode(response).getBytes())
+                        ProtocolUtils.encodeBulkList(response)
                 );
             } else {
                 var blockedClient = BlockedClient.builder()
@@ -57,30 +57,25 @@ public class BLPOPStrategy implements AsyncCommandStrategy, TransactionalCommand
                         .method(UnblockingMethod.FIFO)
                         .keys(List.of(key));
                 if (timeout > 0) {
-                    var instantTimeout = Instant.now().plusMillis(timeout);
-                    blockedClient.timeout(instantTimeout);
+                    blockedClient.deadlineMillis(System.currentTimeMillis() + timeout);
                 }
 
-                blockingClientManager.registerBlockingClient(key, blockedClient.build());
+                blockingClientManager.registerBlockingClient(blockedClient.build());
             }
 
         } catch (CommandExecutionException ex) {
             log.error(ex.getMessage());
-            blockingClientManager.sendResponse(client, ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(ex.getMessage()).getBytes())
-            );
+            blockingClientManager.sendResponse(client, ProtocolUtils.encodeSimpleError(ex.getMessage()));
         } catch (Exception ex) {
             var msg = String.format("Could not append to the list at key %s", key);
             log.error(msg);
-            blockingClientManager.sendResponse(client, ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(msg).getBytes())
-            );
+            blockingClientManager.sendResponse(client, ProtocolUtils.encodeSimpleError(msg));
         }
     }
 
     @Override
-    public ByteBuffer execute(List<String> args, SocketChannel channel) {
+    public ByteBuffer execute(List<ByteString> args, SocketChannel channel) {
         // todo
-        return ByteBuffer.wrap(NULL_STRING.getBytes());
+        return nullString();
     }
 }
@@ -6,12 +6,14 @@ import commands.exceptions.CommandExecutionException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.util.List;
 
+import static commands.Errors.NOT_AN_INTEGER;
 import static commands.Errors.checkArgNumber;
-import static commands.ProtocolUtils.NULL_STRING;
+import static commands.ProtocolUtils.nullString;
 
 @Slf4j
 @AllArgsConstructor
@@ -19,7 +21,7 @@ public class LPOPStrategy implements CommandStrategy {
     private final KeyValueStore kvStore;
 
     @Override
-    public ByteBuffer execute(List<String> args) {
+    public ByteBuffer execute(List<ByteString> args) {
         var err = checkArgNumber(args, 1, 2);
         if (err != null) {
             return err;
@@ -29,42 +31,38 @@ public class LPOPStrategy implements CommandStrategy {
         int numItems = 1;
 
         if (args.size() == 2) {
-            numItems = Integer.parseInt(args.get(1));
+            try {
+                numItems = args.get(1).parseInt();
+            } catch (NumberFormatException e) {
+                return ProtocolUtils.encodeSimpleError(NOT_AN_INTEGER);
+            }
         }
 
         try {
             var removedItems = kvStore.removeItems(key, numItems);
             if (removedItems == null) {
-                return ByteBuffer.wrap(NULL_STRING.getBytes());
+                return nullString();
             }
 
             if (removedItems.size() == 1) {
-                return ByteBuffer.wrap(
-                        ProtocolUtils.encode(removedItems.getFirst()).getBytes()
-                );
+                return ProtocolUtils.encodeBulk(removedItems.getFirst());
             }
 
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encode(removedItems).getBytes()
-            );
+            return ProtocolUtils.encodeBulkList(removedItems);
         }  catch (CommandExecutionException ex) {
             log.error(ex.getMessage());
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(ex.getMessage()).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(ex.getMessage());
         } catch (Exception e) {
             var msg = String.format("Could not remove from list at key %s", key);
             log.error(msg);
 
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(msg).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(msg);
         }
 
 
     }
 
-    public String execute(String key) {
+    public ByteString execute(ByteString key) {
         log.debug("internal lpop execute");
         return this.kvStore.removeFirst(key);
     }
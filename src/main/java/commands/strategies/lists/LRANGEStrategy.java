@@ -1,51 +1,67 @@
 package commands.strategies.lists;
 
-import commands.CommandStrategy;
+import commands.ChunkedReply;
 import commands.ProtocolUtils;
+import commands.async.AsyncCommandStrategy;
+import commands.async.BlockingClientManager;
 import commands.exceptions.CommandExecutionException;
+import commands.transaction.TransactionalCommandStrategy;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.List;
 
-import static commands.Errors.checkArgNumber;
+import static commands.Errors.NOT_AN_INTEGER;
 
+/**
+ * LRANGE replies in chunks, so that a range over a large list does not have to be encoded at once.
+ */
 @Slf4j
 @AllArgsConstructor
-public class LRANGEStrategy implements CommandStrategy {
+public class LRANGEStrategy implements AsyncCommandStrategy, TransactionalCommandStrategy {
     private final KeyValueStore kvStore;
+    private final BlockingClientManager blockingClientManager;
 
     @Override
-    public ByteBuffer execute(List<String> args) {
-        var err = checkArgNumber(args, 3, 3);
-        if (err != null) {
-            return err;
-        }
+    public void executeAsync(List<ByteString> args, SocketChannel client) {
+        blockingClientManager.sendResponse(client, execute(args));
+    }
 
+    /**
+     * Inside a transaction, the range is encoded at once as part of the EXEC reply.
+     */
+    @Override
+    public ByteBuffer execute(List<ByteString> args, SocketChannel channel) {
+        return execute(args).encodeAll();
+    }
+
+    private ChunkedReply execute(List<ByteString> args) {
         var key = args.getFirst();
-        var start = Integer.parseInt(args.get(1));
-        var stop = Integer.parseInt(args.get(2));
+        int start;
+        int stop;
+        try {
+            start = args.get(1).parseInt();
+            stop = args.get(2).parseInt();
+        } catch (NumberFormatException e) {
+            return ChunkedReply.of(ProtocolUtils.encodeSimpleError(NOT_AN_INTEGER));
+        }
 
         try {
             var retrievedRange = kvStore.getRange(key, start, stop);
 
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encode(retrievedRange).getBytes()
-            );
+            return ChunkedReply.ofBulkList(retrievedRange);
         }  catch (CommandExecutionException ex) {
             log.error(ex.getMessage());
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(ex.getMessage()).getBytes()
-            );
+            return ChunkedReply.of(ProtocolUtils.encodeSimpleError(ex.getMessage()));
         } catch (Exception e) {
             var msg = String.format("Could not retrieve range of list at key %s", key);
             log.error(msg);
 
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(msg).getBytes()
-            );
+            return ChunkedReply.of(ProtocolUtils.encodeSimpleError(msg));
         }
 
     }
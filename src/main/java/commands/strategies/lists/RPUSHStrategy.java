@@ -9,12 +9,11 @@ import commands.exceptions.CommandExecutionException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.util.List;
 
-import static commands.Errors.checkArgNumber;
-
 @Slf4j
 @AllArgsConstructor
 public class RPUSHStrategy implements CommandStrategy {
@@ -23,34 +22,23 @@ public class RPUSHStrategy implements CommandStrategy {
     private final BlockingClientManager blockingClientManager;
 
     @Override
-    public ByteBuffer execute(List<String> args) {
-        var err = checkArgNumber(args, 2);
-        if (err != null) {
-            return err;
-        }
-
+    public ByteBuffer execute(List<ByteString> args) {
         var key = args.getFirst();
-        List<String> values = args.subList(1, args.size());
+        List<ByteString> values = args.subList(1, args.size());
 
         try {
             var elements = kvStore.append(key, values);
             log.debug("pushing...");
             this.blockingClientManager.unblockClient(key, Command.LPOP, UnblockingMethod.FIFO);
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encode(elements).getBytes()
-            );
+            return ProtocolUtils.encode(elements);
         } catch (CommandExecutionException ex) {
             log.error(ex.getMessage());
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(ex.getMessage()).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(ex.getMessage());
         } catch (Exception e) {
             var msg = String.format("Could not append to the list at key %s", key);
             log.error(msg);
 
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(msg).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(msg);
         }
     }
 
@@ -0,0 +1,179 @@
+package commands.strategies.misc;
+
+import commands.transaction.TransactionalCommandStrategy;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import server.ClientInfo;
+import server.ClientRegistry;
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static commands.Errors.*;
+import static commands.ProtocolUtils.*;
+
+/**
+ * CLIENT ID | GETNAME | SETNAME | INFO | LIST | KILL, backed by the client registry.
+ */
+@AllArgsConstructor
+@Slf4j
+public class CLIENTStrategy implements TransactionalCommandStrategy {
+
+    private final ClientRegistry clientRegistry;
+
+    @Override
+    public ByteBuffer execute(List<ByteString> args, SocketChannel channel) {
+        var err = checkArgNumber(args, 1);
+        if (err != null) {
+            return err;
+        }
+
+        var subcommand = args.getFirst().toString().toUpperCase();
+        // client names and addresses are text, there is no point in keeping them binary
+        var subcommandArgs = args.subList(1, args.size()).stream()
+                .map(ByteString::toString)
+                .toList();
+        var client = this.clientRegistry.get(channel);
+
+        return switch (subcommand) {
+            case "ID" -> client == null ? noSuchClient() : encode(client.getId());
+            case "GETNAME" -> getName(client);
+            case "SETNAME" -> setName(client, subcommandArgs);
+            case "INFO" -> client == null ? noSuchClient() : encode(client.describe(System.currentTimeMillis()) + "\n");
+            case "LIST" -> list(subcommandArgs);
+            case "KILL" -> kill(subcommandArgs, client);
+            // sent by client libraries on connect, the library name and version are not tracked
+            case "SETINFO" -> ok();
+            default -> encodeSimpleError(String.format(UNKNOWN_SUBCOMMAND, args.getFirst()));
+        };
+    }
+
+    private ByteBuffer getName(ClientInfo client) {
+        if (client == null || client.getName().isEmpty()) {
+            return nullString();
+        }
+        return encode(client.getName());
+    }
+
+    private ByteBuffer setName(ClientInfo client, List<String> args) {
+        var err = checkArgNumber(args, 1, 1);
+        if (err != null) {
+            return err;
+        }
+        if (client == null) {
+            return noSuchClient();
+        }
+
+        var name = args.getFirst();
+        for (int i = 0; i < name.length(); i++) {
+            var c = name.charAt(i);
+            if (c < '!' || c > '~') {
+                return encodeSimpleError(INVALID_CLIENT_NAME);
+            }
+        }
+        client.setName(name);
+        return ok();
+    }
+
+    /**
+     * CLIENT LIST [ID id ...]
+     */
+    private ByteBuffer list(List<String> args) {
+        List<Long> ids = null;
+        if (!args.isEmpty()) {
+            if (!args.getFirst().equalsIgnoreCase("ID") || args.size() < 2) {
+                return encodeSimpleError(SYNTAX_ERROR);
+            }
+            ids = new ArrayList<>();
+            for (var id : args.subList(1, args.size())) {
+                try {
+                    ids.add(Long.parseLong(id));
+                } catch (NumberFormatException e) {
+                    return encodeSimpleError(NOT_AN_INTEGER);
+                }
+            }
+        }
+
+        var now = System.currentTimeMillis();
+        var sb = new StringBuilder();
+        for (var client : this.clientRegistry.getClients()) {
+            if (ids == null || ids.contains(client.getId())) {
+                sb.append(client.describe(now)).append('\n');
+            }
+        }
+        return encode(sb.toString());
+    }
+
+    /**
+     * Supports the old CLIENT KILL addr:port form, replying OK,
+     * and the CLIENT KILL [ID id] [ADDR addr:port] [LADDR addr:port] [SKIPME yes/no] filters,
+     * replying with the number of killed clients.
+     */
+    private ByteBuffer kill(List<String> args, ClientInfo self) {
+        if (args.size() == 1) {
+            for (var client : this.clientRegistry.getClients()) {
+                if (client.getAddress().equals(args.getFirst())) {
+                    client.kill();
+                    return ok();
+                }
+            }
+            return noSuchClient();
+        }
+
+        if (args.isEmpty() || args.size() % 2 != 0) {
+            return encodeSimpleError(SYNTAX_ERROR);
+        }
+
+        Long id = null;
+        String address = null;
+        String localAddress = null;
+        var skipMe = true;
+        for (int i = 0; i < args.size(); i += 2) {
+            var value = args.get(i + 1);
+            switch (args.get(i).toUpperCase()) {
+                case "ID" -> {
+                    try {
+                        id = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        return encodeSimpleError(NOT_AN_INTEGER);
+                    }
+                }
+                case "ADDR" -> address = value;
+                case "LADDR" -> localAddress = value;
+                case "SKIPME" -> {
+                    if (value.equalsIgnoreCase("yes")) {
+                        skipMe = true;
+                    } else if (value.equalsIgnoreCase("no")) {
+                        skipMe = false;
+                    } else {
+                        return encodeSimpleError(SYNTAX_ERROR);
+                    }
+                }
+                default -> {
+                    return encodeSimpleError(SYNTAX_ERROR);
+                }
+            }
+        }
+
+        var killed = 0;
+        for (var client : this.clientRegistry.getClients()) {
+            if ((id != null && client.getId() != id)
+                    || (address != null && !client.getAddress().equals(address))
+                    || (localAddress != null && !client.getLocalAddress().equals(localAddress))
+                    || (skipMe && client == self)) {
+                continue;
+            }
+            log.info("Killing client {}", client.getAddress());
+            client.kill();
+            killed++;
+        }
+        return encode(killed);
+    }
+
+    private static ByteBuffer noSuchClient() {
+        return encodeSimpleError(NO_SUCH_CLIENT);
+    }
+}
@@ -0,0 +1,96 @@
+package commands.strategies.misc;
+
+import commands.CommandDescriptor;
+import commands.CommandStrategy;
+import commands.CommandTable;
+import commands.RespWriter;
+import lombok.AllArgsConstructor;
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static commands.Errors.*;
+import static commands.ProtocolUtils.*;
+
+/**
+ * COMMAND [COUNT | INFO [command ...] | GETKEYS command [arg ...] | DOCS [command ...]],
+ * answered from the metadata of the registered commands.
+ * Each command is described the way redis did before version 7:
+ * name, arity, flags, first key, last key and key step.
+ */
+@AllArgsConstructor
+public class COMMANDStrategy implements CommandStrategy {
+
+    // the table is built after its strategies, this one included
+    private final Supplier<CommandTable> commandTable;
+
+    @Override
+    public ByteBuffer execute(List<ByteString> args) {
+        var commands = this.commandTable.get();
+        if (args.isEmpty()) {
+            return info(commands.descriptors());
+        }
+
+        var subcommand = args.getFirst();
+        if (subcommand.equalsIgnoreCase("COUNT") && args.size() == 1) {
+            return encode(commands.size());
+        }
+        if (subcommand.equalsIgnoreCase("INFO")) {
+            if (args.size() == 1) {
+                return info(commands.descriptors());
+            }
+            return info(args.subList(1, args.size()).stream().map(commands::get).toList());
+        }
+        if (subcommand.equalsIgnoreCase("GETKEYS") && args.size() > 1) {
+            return getKeys(commands, args.subList(1, args.size()));
+        }
+        // documentation is not available, clients asking for it on connect get an empty map
+        if (subcommand.equalsIgnoreCase("DOCS")) {
+            return encodeArrayHeader(0);
+        }
+        return encodeSimpleError(String.format(UNKNOWN_SUBCOMMAND, subcommand));
+    }
+
+    private static ByteBuffer getKeys(CommandTable commands, List<ByteString> call) {
+        var descriptor = commands.get(call.getFirst());
+        if (descriptor == null) {
+            return encodeSimpleError(INVALID_COMMAND);
+        }
+        var command = descriptor.command();
+        if (!command.acceptsArgumentCount(call.size())) {
+            return encodeSimpleError(INVALID_COMMAND_ARGS_NUMBER);
+        }
+
+        var keys = command.keys(call);
+        if (keys.isEmpty()) {
+            return encodeSimpleError(NO_KEY_ARGUMENTS);
+        }
+        return encodeBulkList(keys);
+    }
+
+    /**
+     * @param descriptors the commands to describe, null for unknown commands
+     */
+    private static ByteBuffer info(List<CommandDescriptor> descriptors) {
+        var writer = new RespWriter().arrayHeader(descriptors.size());
+        for (var descriptor : descriptors) {
+            if (descriptor == null) {
+                writer.nullArray();
+                continue;
+            }
+
+            var command = descriptor.command();
+            writer.arrayHeader(6)
+                    .bulk(command.toString())
+                    .integer(command.getArity())
+                    .arrayHeader(command.getFlags().size());
+            command.getFlags().forEach(flag -> writer.simpleString(flag.toString()));
+            writer.integer(command.getFirstKey())
+                    .integer(command.getLastKey())
+                    .integer(command.getKeyStep());
+        }
+        return writer.toBuffer();
+    }
+}
@@ -1,17 +0,0 @@
-package commands.strategies.misc;
-
-import commands.CommandStrategy;
-import commands.ProtocolUtils;
-
-import java.nio.ByteBuffer;
-import java.util.List;
-
-public class DOCSStrategy implements CommandStrategy {
-
-    @Override
-    public ByteBuffer execute(List<String> args) {
-        return ByteBuffer.wrap(
-                ProtocolUtils.encode("DOCS placeholder").getBytes()
-        );
-    }
-}
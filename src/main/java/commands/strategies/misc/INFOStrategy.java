@@ -2,9 +2,12 @@ package commands.strategies.misc;
 
 import commands.CommandStrategy;
 import commands.ProtocolUtils;
+import commands.stats.CommandStats;
+import commands.stats.MemoryStats;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import server.Configuration;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.util.List;
@@ -15,34 +18,42 @@ import static commands.Errors.checkArgNumber;
 @Slf4j
 public class INFOStrategy implements CommandStrategy {
 
+    private static final String COMMANDSTATS = "commandstats";
+    private static final String LATENCYSTATS = "latencystats";
+    private static final String MEMORY = "memory";
+
     private final Configuration nodeConfiguration;
+    private final CommandStats commandStats;
+    private final MemoryStats memoryStats;
 
     @Override
-    public ByteBuffer execute(List<String> args) {
+    public ByteBuffer execute(List<ByteString> args) {
         var err = checkArgNumber(args, 0, 1);
         if (err != null) {
             return err;
         }
 
         var fullConfig = nodeConfiguration.getFullConfig();
+        fullConfig.put(MEMORY, memoryStats.infoSection());
         if (args.isEmpty()) {
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeFullConfiguration(fullConfig).getBytes()
-            );
+            return ProtocolUtils.encodeFullConfiguration(fullConfig);
         }
 
-        var infoSection = args.getFirst().toLowerCase();
+        var infoSection = args.getFirst().toString().toLowerCase();
+        // computed on demand, and like in redis not part of the default sections
+        if (infoSection.equals(COMMANDSTATS)) {
+            return ProtocolUtils.encodeConfigurationSection(commandStats.commandStatsSection());
+        }
+        if (infoSection.equals(LATENCYSTATS)) {
+            return ProtocolUtils.encodeConfigurationSection(commandStats.latencyStatsSection());
+        }
 
         if (!fullConfig.containsKey(infoSection)) {
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encode("").getBytes()
-            );
+            return ProtocolUtils.encode("");
         }
 
         var sectionConfig = fullConfig.get(infoSection);
 
-        return ByteBuffer.wrap(
-                ProtocolUtils.encodeConfigurationSection(sectionConfig).getBytes()
-        );
+        return ProtocolUtils.encodeConfigurationSection(sectionConfig);
     }
 }
@@ -0,0 +1,77 @@
+package commands.strategies.misc;
+
+import commands.Command;
+import commands.CommandStrategy;
+import commands.CommandTable;
+import commands.RespWriter;
+import commands.stats.CommandStats;
+import lombok.AllArgsConstructor;
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static commands.Errors.UNKNOWN_SUBCOMMAND;
+import static commands.ProtocolUtils.encodeSimpleError;
+
+/**
+ * LATENCY HISTOGRAM [command ...]: for every given command, or every command when none is given,
+ * that was called at least once, replies with
+ * <pre>
+ * command name
+ *     1) "calls"
+ *     2) number of calls
+ *     3) "histogram_usec"
+ *     4) pairs of a power of two bound in microseconds and the number of calls that took at most that long
+ * </pre>
+ */
+@AllArgsConstructor
+public class LATENCYStrategy implements CommandStrategy {
+
+    private final CommandStats commandStats;
+    private final Supplier<CommandTable> commandTable;
+
+    @Override
+    public ByteBuffer execute(List<ByteString> args) {
+        if (!args.getFirst().equalsIgnoreCase("HISTOGRAM")) {
+            return encodeSimpleError(String.format(UNKNOWN_SUBCOMMAND, args.getFirst()));
+        }
+
+        List<Command> commands;
+        if (args.size() == 1) {
+            commands = Arrays.asList(Command.values());
+        } else {
+            var table = this.commandTable.get();
+            commands = new ArrayList<>();
+            for (var name : args.subList(1, args.size())) {
+                var descriptor = table.get(name);
+                // unknown commands are skipped, like in redis
+                if (descriptor != null && !commands.contains(descriptor.command())) {
+                    commands.add(descriptor.command());
+                }
+            }
+        }
+
+        var called = commands.stream()
+                .filter(command -> this.commandStats.get(command).getCalls().get() > 0)
+                .toList();
+        var writer = new RespWriter().arrayHeader(called.size() * 2);
+        for (var command : called) {
+            var stats = this.commandStats.get(command);
+            var buckets = stats.getHistogram().powerOfTwoBuckets();
+            writer.bulk(command.toString())
+                    .arrayHeader(4)
+                    .bulk("calls")
+                    .integer(stats.getCalls().get())
+                    .bulk("histogram_usec")
+                    .arrayHeader(buckets.size() * 2);
+            for (var bucket : buckets) {
+                writer.integer(bucket.upperBoundMicros()).integer(bucket.cumulativeCount());
+            }
+        }
+        return writer.toBuffer();
+    }
+}
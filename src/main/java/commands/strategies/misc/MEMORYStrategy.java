@@ -0,0 +1,78 @@
+package commands.strategies.misc;
+
+import commands.CommandStrategy;
+import commands.RespWriter;
+import commands.stats.MemoryStats;
+import lombok.AllArgsConstructor;
+import store.KeyValueStore;
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static commands.Errors.*;
+import static commands.ProtocolUtils.*;
+
+/**
+ * MEMORY USAGE key [SAMPLES count] | STATS.
+ * USAGE replies with the estimated bytes taken by a key and its value, or null if the key does not exist.
+ * The size of lists and streams is extrapolated from their first count elements, 5 by default, 0 measuring all of them.
+ * STATS replies with pairs of a metric name and its value, like redis.
+ */
+@AllArgsConstructor
+public class MEMORYStrategy implements CommandStrategy {
+    private static final int DEFAULT_SAMPLES = 5;
+
+    private final KeyValueStore kvStore;
+    private final MemoryStats memoryStats;
+
+    @Override
+    public ByteBuffer execute(List<ByteString> args) {
+        var subcommand = args.getFirst();
+        if (subcommand.equalsIgnoreCase("USAGE") && (args.size() == 2 || args.size() == 4)) {
+            var samples = DEFAULT_SAMPLES;
+            if (args.size() == 4) {
+                if (!args.get(2).equalsIgnoreCase("SAMPLES")) {
+                    return encodeSimpleError(SYNTAX_ERROR);
+                }
+                try {
+                    samples = args.get(3).parseInt();
+                } catch (NumberFormatException e) {
+                    return encodeSimpleError(NOT_AN_INTEGER);
+                }
+                if (samples < 0) {
+                    return encodeSimpleError(NOT_AN_INTEGER);
+                }
+            }
+            var usage = this.kvStore.memoryUsage(args.get(1), samples);
+            return usage == null ? nullString() : encode(usage);
+        }
+        if (subcommand.equalsIgnoreCase("STATS") && args.size() == 1) {
+            return stats();
+        }
+        return encodeSimpleError(String.format(UNKNOWN_SUBCOMMAND, subcommand));
+    }
+
+    private ByteBuffer stats() {
+        var snapshot = this.memoryStats.snapshot();
+        var runtime = Runtime.getRuntime();
+        var used = snapshot.usedBytes();
+
+        return new RespWriter().arrayHeader(24)
+                .bulk("peak.allocated").integer(this.memoryStats.peakBytes())
+                .bulk("total.allocated").integer(used)
+                .bulk("clients.normal").integer(snapshot.clientsBytes())
+                .bulk("overhead.total").integer(snapshot.overheadBytes())
+                .bulk("keys.count").integer(snapshot.keys())
+                .bulk("keys.bytes-per-key").integer(snapshot.keys() == 0 ? 0 : used / snapshot.keys())
+                .bulk("dataset.bytes").integer(snapshot.datasetBytes())
+                .bulk("dataset.percentage").bulk(MemoryStats.percentage(snapshot.datasetBytes(), used))
+                .bulk("peak.percentage").bulk(MemoryStats.percentage(used, this.memoryStats.peakBytes()))
+                .bulk("db.0").arrayHeader(4)
+                .bulk("overhead.hashtable.main").integer(snapshot.mainTableBytes())
+                .bulk("overhead.hashtable.expires").integer(snapshot.expiresBytes())
+                .bulk("jvm.heap.used").integer(runtime.totalMemory() - runtime.freeMemory())
+                .bulk("jvm.heap.committed").integer(runtime.totalMemory())
+                .toBuffer();
+    }
+}
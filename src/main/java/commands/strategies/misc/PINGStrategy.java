@@ -1,13 +1,15 @@
 package commands.strategies.misc;
 
 import commands.CommandStrategy;
+import commands.ProtocolUtils;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.util.List;
 
 public class PINGStrategy implements CommandStrategy {
     @Override
-    public ByteBuffer execute(List<String> args) {
-        return ByteBuffer.wrap("+PONG\r\n".getBytes());
+    public ByteBuffer execute(List<ByteString> args) {
+        return ProtocolUtils.pong();
     }
 }
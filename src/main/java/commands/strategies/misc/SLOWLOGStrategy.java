@@ -0,0 +1,68 @@
+package commands.strategies.misc;
+
+import commands.CommandStrategy;
+import commands.RespWriter;
+import commands.stats.SlowLog;
+import lombok.AllArgsConstructor;
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static commands.Errors.*;
+import static commands.ProtocolUtils.*;
+
+/**
+ * SLOWLOG GET [count] | LEN | RESET.
+ * GET replies with the most recent entries first, each one being a list of
+ * id, timestamp, duration in microseconds, arguments, client address and client name.
+ */
+@AllArgsConstructor
+public class SLOWLOGStrategy implements CommandStrategy {
+    private static final int DEFAULT_COUNT = 10;
+
+    private final SlowLog slowLog;
+
+    @Override
+    public ByteBuffer execute(List<ByteString> args) {
+        var subcommand = args.getFirst();
+        if (subcommand.equalsIgnoreCase("LEN") && args.size() == 1) {
+            return encode(this.slowLog.size());
+        }
+        if (subcommand.equalsIgnoreCase("RESET") && args.size() == 1) {
+            this.slowLog.reset();
+            return ok();
+        }
+        if (subcommand.equalsIgnoreCase("GET") && args.size() <= 2) {
+            var count = DEFAULT_COUNT;
+            if (args.size() == 2) {
+                try {
+                    count = args.get(1).parseInt();
+                } catch (NumberFormatException e) {
+                    return encodeSimpleError(NOT_AN_INTEGER);
+                }
+                if (count < -1) {
+                    return encodeSimpleError(NOT_AN_INTEGER);
+                }
+            }
+            return get(count);
+        }
+        return encodeSimpleError(String.format(UNKNOWN_SUBCOMMAND, subcommand));
+    }
+
+    private ByteBuffer get(int count) {
+        var entries = this.slowLog.get(count);
+        var writer = new RespWriter().arrayHeader(entries.size());
+        for (var entry : entries) {
+            writer.arrayHeader(6)
+                    .integer(entry.id())
+                    .integer(entry.timestamp())
+                    .integer(entry.durationMicros())
+                    .arrayHeader(entry.args().size());
+            entry.args().forEach(writer::bulk);
+            writer.bulk(entry.clientAddress())
+                    .bulk(entry.clientName());
+        }
+        return writer.toBuffer();
+    }
+}
@@ -3,11 +3,11 @@ package commands.strategies.misc;
 import commands.CommandStrategy;
 import lombok.AllArgsConstructor;
 import store.KeyValueStore;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.util.List;
 
-import static commands.Errors.checkArgNumber;
 import static commands.ProtocolUtils.encode;
 
 @AllArgsConstructor
@@ -16,25 +16,16 @@ public class TYPEStrategy implements CommandStrategy {
     private final KeyValueStore kvStore;
 
     @Override
-    public ByteBuffer execute(List<String> args) {
-        var err = checkArgNumber(args, 1, 1);
-        if (err != null) {
-            return err;
-        }
-
+    public ByteBuffer execute(List<ByteString> args) {
         var key = args.getFirst();
 
         var valueObject = this.kvStore.getRedisObject(key);
 
         if (valueObject == null) {
-            return ByteBuffer.wrap(
-                    encode("none").getBytes()
-            );
+            return encode("none");
         }
 
         var type = valueObject.getType();
-        return ByteBuffer.wrap(
-                encode(type.toString()).getBytes()
-        );
+        return encode(type.toString());
     }
 }
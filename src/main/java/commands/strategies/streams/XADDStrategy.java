@@ -8,13 +8,13 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
 import store.StreamIdUtils;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 
 import static commands.Command.XREAD;
-import static commands.Errors.checkArgNumber;
 import static store.StreamIdUtils.checkIllegalStructure;
 
 @Slf4j
@@ -25,14 +25,9 @@ public class XADDStrategy implements CommandStrategy {
     private final BlockingClientManager blockingClientManager;
 
     @Override
-    public ByteBuffer execute(List<String> args) {
-        var err = checkArgNumber(args, 4);
-        if (err != null) {
-            return err;
-        }
-
+    public ByteBuffer execute(List<ByteString> args) {
         var streamKey = args.getFirst();
-        var streamId = args.get(1);
+        var streamId = args.get(1).toString();
 
         var utils = new StreamIdUtils(kvStore);
 
@@ -54,8 +49,8 @@ public class XADDStrategy implements CommandStrategy {
 
         var item = new HashMap<String, String>();
         for (int i = 2; i < args.size()-1; i += 2) {
-            var entryKey = args.get(i);
-            var entryValue = args.get(i+1);
+            var entryKey = args.get(i).toString();
+            var entryValue = args.get(i+1).toString();
             item.put(entryKey, entryValue);
         }
 
@@ -68,14 +63,10 @@ public class XADDStrategy implements CommandStrategy {
                     }
             );
 
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encode(streamId).getBytes()
-            );
+            return ProtocolUtils.encode(streamId);
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError("Could not add stream").getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError("Could not add stream");
         }
     }
 
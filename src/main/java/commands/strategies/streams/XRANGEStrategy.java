@@ -1,66 +1,75 @@
 package commands.strategies.streams;
 
-import commands.CommandStrategy;
+import commands.ChunkedReply;
 import commands.ProtocolUtils;
+import commands.async.AsyncCommandStrategy;
+import commands.async.BlockingClientManager;
 import commands.exceptions.CommandExecutionException;
+import commands.transaction.TransactionalCommandStrategy;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
 import store.StreamIdUtils;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.List;
 
 import static commands.Errors.COMMAND_FAIL;
-import static commands.Errors.checkArgNumber;
 
+/**
+ * XRANGE replies in chunks, so that a range over a large stream does not have to be encoded at once.
+ */
 @Slf4j
 @AllArgsConstructor
-public class XRANGEStrategy implements CommandStrategy {
+public class XRANGEStrategy implements AsyncCommandStrategy, TransactionalCommandStrategy {
 
     private final KeyValueStore kvStore;
+    private final BlockingClientManager blockingClientManager;
 
     @Override
-    public ByteBuffer execute(List<String> args) {
-        var err = checkArgNumber(args, 3, 3);
-        if (err != null) {
-            return err;
-        }
+    public void executeAsync(List<ByteString> args, SocketChannel client) {
+        blockingClientManager.sendResponse(client, execute(args));
+    }
+
+    /**
+     * Inside a transaction, the range is encoded at once as part of the EXEC reply.
+     */
+    @Override
+    public ByteBuffer execute(List<ByteString> args, SocketChannel channel) {
+        return execute(args).encodeAll();
+    }
 
+    private ChunkedReply execute(List<ByteString> args) {
         var key = args.getFirst();
 
         var utils = new StreamIdUtils(kvStore);
-        var start = args.get(1);
-        var end = args.get(2);
+        var start = args.get(1).toString();
+        var end = args.get(2).toString();
 
         var formatError = utils.checkRangeIllegalStructure(start);
         if (formatError != null) {
-            return formatError;
+            return ChunkedReply.of(formatError);
         }
 
         formatError = utils.checkRangeIllegalStructure(end);
         if (formatError != null) {
-            return formatError;
+            return ChunkedReply.of(formatError);
         }
         start = utils.getFormattedStartLimit(start);
         end = utils.getExclusiveEndLimit(end);
 
         try {
             var streamRange = this.kvStore.getStreamRange(key, start, end);
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeStream(streamRange).getBytes()
-            );
+            return ChunkedReply.ofStream(streamRange);
         } catch (CommandExecutionException ex) {
             log.error(ex.getMessage());
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(ex.getMessage()).getBytes()
-            );
+            return ChunkedReply.of(ProtocolUtils.encodeSimpleError(ex.getMessage()));
         }
         catch (Exception e) {
             log.error(COMMAND_FAIL);
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(COMMAND_FAIL).getBytes()
-            );
+            return ChunkedReply.of(ProtocolUtils.encodeSimpleError(COMMAND_FAIL));
         }
     }
 }
@@ -1,5 +1,6 @@
 package commands.strategies.streams;
 
+import commands.ChunkedReply;
 import commands.Command;
 import commands.async.AsyncCommandStrategy;
 import commands.async.BlockedClient;
@@ -12,10 +13,10 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
 import store.StreamIdUtils;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,12 +31,7 @@ public class XREADStrategy implements AsyncCommandStrategy, TransactionalCommand
     private final BlockingClientManager blockingClientManager;
 
     @Override
-    public void executeAsync(List<String> args, SocketChannel client) {
-
-        var err = checkArgNumber(args, 3);
-        if (err != null) {
-            blockingClientManager.sendResponse(client, err);
-        }
+    public void executeAsync(List<ByteString> args, SocketChannel client) {
 
         var i = 0;
         var shouldBlock = false;
@@ -43,14 +39,15 @@ public class XREADStrategy implements AsyncCommandStrategy, TransactionalCommand
         var streamsOptionSeen = false;
 
         var utils = new StreamIdUtils(kvStore);
-        var keys = new ArrayList<String>();
+        var keys = new ArrayList<ByteString>();
         var ids = new ArrayList<String>();
         var firstIdSeen = false;
         var waitForFuture = false;
         var count = 1;
 
         while(i < args.size()) {
-            var currArg = args.get(i);
+            var arg = args.get(i);
+            var currArg = arg.toString();
 
             if (currArg.equalsIgnoreCase("STREAMS")) {
                 streamsOptionSeen = true;
@@ -72,7 +69,7 @@ public class XREADStrategy implements AsyncCommandStrategy, TransactionalCommand
                     }
 
                     if (!firstIdSeen) {
-                        keys.add(currArg);
+                        keys.add(arg);
                     }
                 } else {
                     firstIdSeen = true;
@@ -86,14 +83,13 @@ public class XREADStrategy implements AsyncCommandStrategy, TransactionalCommand
                 if (currArg.equalsIgnoreCase("BLOCK")) {
                     shouldBlock = true;
                     try {
-                        timeout = Long.parseLong(args.get(i+1));
+                        timeout = args.get(i+1).parseLong();
                     } catch (Exception e) {
                         blockingClientManager.sendResponse(
                                 client,
-                                ByteBuffer.wrap(
-                                        ProtocolUtils.encodeSimpleError(TIMEOUT_INVALID).getBytes()
-                                )
+                                ProtocolUtils.encodeSimpleError(TIMEOUT_INVALID)
                         );
+                        return;
                     }
 
                     i++;
@@ -105,25 +101,22 @@ public class XREADStrategy implements AsyncCommandStrategy, TransactionalCommand
         if (!streamsOptionSeen) {
             blockingClientManager.sendResponse(
                     client,
-                    ByteBuffer.wrap(
-                            ProtocolUtils.encodeBulkError("stream option").getBytes()
-                    ));
+                    ProtocolUtils.encodeBulkError("stream option"));
+            return;
         }
 
         if (keys.size() != ids.size()) {
             blockingClientManager.sendResponse(
                     client,
-                    ByteBuffer.wrap(
-                            ProtocolUtils.encodeBulkError(UNBALANCED_XREAD).getBytes()
-                    ));
+                    ProtocolUtils.encodeBulkError(UNBALANCED_XREAD));
+            return;
         }
 
         if (waitForFuture && ids.size() != 1) {
             blockingClientManager.sendResponse(
                     client,
-                    ByteBuffer.wrap(
-                            ProtocolUtils.encodeBulkError(WRONG_TYPE).getBytes()
-                    ));
+                    ProtocolUtils.encodeBulkError(WRONG_TYPE));
+            return;
         }
 
         try {
@@ -138,60 +131,43 @@ public class XREADStrategy implements AsyncCommandStrategy, TransactionalCommand
                         .ids(ids);
 
                 if (timeout > 0) {
-                    var instantTimeout = Instant.now().plusMillis(timeout);
-                    blockedClient.timeout(instantTimeout);
+                    blockedClient.deadlineMillis(System.currentTimeMillis() + timeout);
                 }
 
-                keys.forEach(k ->
-                        blockingClientManager.registerBlockingClient(
-                                k, blockedClient.build())
-                );
+                blockingClientManager.registerBlockingClient(blockedClient.build());
                 return;
             }
 
             blockingClientManager.sendResponse(
                     client,
-                    ByteBuffer.wrap(
-                            ProtocolUtils.encodeStreamList(streams, keys).getBytes()
-            ));
+                    ChunkedReply.ofStreamList(streams, keys));
         } catch (CommandExecutionException ex) {
             log.error(ex.getMessage());
-            blockingClientManager.sendResponse(client, ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(ex.getMessage()).getBytes())
-            );
+            blockingClientManager.sendResponse(client, ProtocolUtils.encodeSimpleError(ex.getMessage()));
         } catch (Exception e) {
             log.error(COMMAND_FAIL);
             blockingClientManager.sendResponse(
                     client,
-                    ByteBuffer.wrap(
-                            ProtocolUtils.encodeBulkError(COMMAND_FAIL).getBytes()
-                    ));
+                    ProtocolUtils.encodeBulkError(COMMAND_FAIL));
         }
 
     }
 
-    public ByteBuffer execute(List<String> keys, List<String> ids, int count) {
+    public ChunkedReply execute(List<ByteString> keys, List<String> ids, int count) {
         try {
             var selectedStreams = this.kvStore.selectStreams(keys, ids, count);
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeStreamList(selectedStreams, keys).getBytes()
-            );
+            return ChunkedReply.ofStreamList(selectedStreams, keys);
         } catch (CommandExecutionException ex) {
             log.error(ex.getMessage());
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(ex.getMessage()).getBytes()
-            );
+            return ChunkedReply.of(ProtocolUtils.encodeSimpleError(ex.getMessage()));
         } catch (Exception e) {
-            return
-                    ByteBuffer.wrap(
-                            ProtocolUtils.encodeBulkError(COMMAND_FAIL).getBytes()
-                    );
+            return ChunkedReply.of(ProtocolUtils.encodeBulkError(COMMAND_FAIL));
         }
 
     }
 
     @Override
-    public ByteBuffer execute(List<String> args, SocketChannel channel) {
+    public ByteBuffer execute(List<ByteString> args, SocketChannel channel) {
         return null;
     }
 }
\ No newline at end of file
@@ -6,12 +6,11 @@ import commands.exceptions.CommandExecutionException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.util.List;
 
-import static commands.Errors.checkArgNumber;
-
 @AllArgsConstructor
 @Slf4j
 public class INCRStrategy implements CommandStrategy {
@@ -19,31 +18,20 @@ public class INCRStrategy implements CommandStrategy {
     private final KeyValueStore kvStore;
 
     @Override
-    public ByteBuffer execute(List<String> args) {
-        var err = checkArgNumber(args, 1, 1);
-        if (err != null) {
-            return err;
-        }
-
+    public ByteBuffer execute(List<ByteString> args) {
         var key = args.getFirst();
 
         try {
             var updatedValue = this.kvStore.increment(key);
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encode(updatedValue).getBytes()
-            );
+            return ProtocolUtils.encode(updatedValue);
         } catch(CommandExecutionException ex) {
             log.error(ex.getMessage());
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(ex.getMessage()).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(ex.getMessage());
         } catch (Exception e) {
             var msg = String.format("Could not increment %s...", key);
             log.error(msg);
 
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(msg).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(msg);
         }
     }
 }
@@ -5,17 +5,17 @@ import commands.ProtocolUtils;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
-import store.expiry.Expiry;
-import store.expiry.NoExpiry;
-import store.expiry.TTLExpiry;
+import store.RedisObject;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
-import java.time.Instant;
 import java.util.List;
 
+import static commands.Errors.NOT_AN_INTEGER;
+import static commands.Errors.SYNTAX_ERROR;
 import static commands.Errors.checkArgNumber;
-import static commands.ProtocolUtils.NULL_STRING;
-import static commands.ProtocolUtils.OK;
+import static commands.ProtocolUtils.nullString;
+import static commands.ProtocolUtils.ok;
 
 @Slf4j
 @AllArgsConstructor
@@ -37,7 +37,7 @@ public class SETStrategy implements CommandStrategy {
      * @return a protocol encoded "OK" or an error
      */
     @Override
-    public ByteBuffer execute(List<String> args) {
+    public ByteBuffer execute(List<ByteString> args) {
         var err = checkArgNumber(args, 2, 5);
         if (err != null) {
             return err;
@@ -46,27 +46,29 @@ public class SETStrategy implements CommandStrategy {
         var key = args.getFirst();
         var value = args.get(1);
         var ttl = Long.MAX_VALUE;
-        Expiry expiry = null;
+        var expiresAtMillis = RedisObject.NO_EXPIRY;
         String condition = null;
 
         int curr = 2;
         while (curr < args.size()) {
-            var currArg = args.get(curr).toUpperCase();
+            var currArg = args.get(curr).toString().toUpperCase();
             switch (currArg) {
                 case "EX":
                 case "PX":
                     if (curr + 1 >= args.size()) {
                         String msg = String.format("Optional argument %s requires a positive integer for expiry", args.get(curr));
                         log.error(msg);
-                        return ByteBuffer.wrap(
-                                ProtocolUtils.encodeSimpleError(msg).getBytes());
+                        return ProtocolUtils.encodeSimpleError(msg);
+                    }
+                    try {
+                        ttl = args.get(curr+1).parseLong();
+                    } catch (NumberFormatException e) {
+                        return ProtocolUtils.encodeSimpleError(NOT_AN_INTEGER);
                     }
                     if (currArg.equals("EX")) {
-                        ttl = Long.parseLong(args.get(curr+1)) * 1000;
-                    } else {
-                        ttl = Long.parseLong(args.get(curr+1));
+                        ttl *= 1000;
                     }
-                    expiry = new TTLExpiry(Instant.now().plusMillis(ttl));
+                    expiresAtMillis = kvStore.getClock().millis() + ttl;
                     curr += 2;
                     break;
                 case "EXAT":
@@ -74,17 +76,18 @@ public class SETStrategy implements CommandStrategy {
                     if (curr + 1 >= args.size()) {
                         String msg = String.format("Optional argument %s requires a positive integer for the expiry timestamp", args.get(curr));
                         log.error(msg);
-                        return ByteBuffer.wrap(
-                                ProtocolUtils.encodeSimpleError(msg).getBytes()
-                        );
+                        return ProtocolUtils.encodeSimpleError(msg);
                     }
 
+                    try {
+                        ttl = args.get(curr+1).parseLong();
+                    } catch (NumberFormatException e) {
+                        return ProtocolUtils.encodeSimpleError(NOT_AN_INTEGER);
+                    }
                     if (currArg.equals("EXAT")) {
-                        ttl = Long.parseLong(args.get(curr+1)) * 1000;
-                    } else {
-                        ttl = Long.parseLong(args.get(curr+1));
+                        ttl *= 1000;
                     }
-                    expiry = new TTLExpiry(Instant.ofEpochMilli(ttl));
+                    expiresAtMillis = ttl;
                     curr += 2;
                     break;
                 case "NX":
@@ -95,30 +98,29 @@ public class SETStrategy implements CommandStrategy {
                     condition = "XX";
                     curr += 1;
                     break;
+                default:
+                    // an unknown option would otherwise never be consumed
+                    return ProtocolUtils.encodeSimpleError(SYNTAX_ERROR);
             }
         }
 
         if (condition != null && !shouldApplyCondition(condition, key)) {
             log.info("Value was not set. Argument {} was used", condition);
-            return ByteBuffer.wrap(NULL_STRING.getBytes());
+            return nullString();
         }
 
-        expiry = expiry != null ? expiry : new NoExpiry();
-
         try {
-            kvStore.setValue(key, value, expiry);
+            kvStore.setValue(key, value, expiresAtMillis);
         } catch (Exception e) {
             String msg = String.format("Could not save the key-value pair %s-%s", key, value);
             log.error(msg);
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(msg).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(msg);
         }
 
-        return ByteBuffer.wrap(OK.getBytes());
+        return ok();
     }
 
-    private boolean shouldApplyCondition(String condition, String key) {
+    private boolean shouldApplyCondition(String condition, ByteString key) {
         return switch (condition) {
             case "NX" -> !kvStore.containsKey(key);
             case "XX" -> kvStore.containsKey(key);
@@ -4,13 +4,14 @@ import commands.transaction.TransactionalClientManager;
 import commands.transaction.TransactionalCommandStrategy;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import store.types.ByteString;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.List;
 
 import static commands.Errors.DISCARD_WITHOUT_TRANSACTION;
-import static commands.ProtocolUtils.OK;
+import static commands.ProtocolUtils.ok;
 import static commands.ProtocolUtils.encodeSimpleError;
 
 @AllArgsConstructor
@@ -20,16 +21,14 @@ public class DISCARDStrategy implements TransactionalCommandStrategy {
     private final TransactionalClientManager clientManager;
 
     @Override
-    public ByteBuffer execute(List<String> args, SocketChannel channel) {
+    public ByteBuffer execute(List<ByteString> args, SocketChannel channel) {
 
 
         if (this.clientManager.isInTransaction(channel)) {
             this.clientManager.removeTransaction(channel);
-            return ByteBuffer.wrap(OK.getBytes());
+            return ok();
         }
 
-        return ByteBuffer.wrap(
-                encodeSimpleError(DISCARD_WITHOUT_TRANSACTION).getBytes()
-        );
+        return encodeSimpleError(DISCARD_WITHOUT_TRANSACTION);
     }
 }
@@ -1,41 +1,38 @@
 package commands.strategies.transactional;
 
 import commands.ProtocolUtils;
+import commands.async.AsyncCommandStrategy;
 import commands.transaction.TransactionManager;
 import commands.transaction.TransactionalClientManager;
-import commands.transaction.TransactionalCommandStrategy;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import store.types.ByteString;
 
-import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.List;
 
 import static commands.Errors.EXEC_WITHOUT_TRANSACTION;
-import static commands.Errors.checkArgNumber;
 
 @AllArgsConstructor
 @Slf4j
-public class EXECStrategy implements TransactionalCommandStrategy {
+/**
+ * EXEC replies asynchronously: the results of the queued commands are sent as a gather list,
+ * an array header followed by each command's reply, instead of being copied into one buffer.
+ */
+public class EXECStrategy implements AsyncCommandStrategy {
 
     private final TransactionalClientManager clientManager;
     private final TransactionManager transactionManager;
 
     @Override
-    public ByteBuffer execute(List<String> args, SocketChannel channel) {
-        var err = checkArgNumber(args, 0, 0);
-        if (err != null) {
-            return err;
-        }
-
+    public void executeAsync(List<ByteString> args, SocketChannel channel) {
         if (!clientManager.isInTransaction(channel)) {
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(EXEC_WITHOUT_TRANSACTION).getBytes()
-            );
+            this.transactionManager.sendResponse(channel, ProtocolUtils.encodeSimpleError(EXEC_WITHOUT_TRANSACTION));
+            return;
         }
 
         var commands = clientManager.getCommands(channel);
         clientManager.removeTransaction(channel); //todo here?
-        return this.transactionManager.onExecuteTransaction(commands, channel);
+        this.transactionManager.onExecuteTransaction(commands, channel);
     }
 }
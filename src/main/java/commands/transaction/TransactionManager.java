@@ -1,11 +1,18 @@
 package commands.transaction;
 
+import store.types.ByteString;
+
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.List;
 
 public interface TransactionManager {
 
-    ByteBuffer onExecuteTransaction(List<List<String>> commandList, SocketChannel channel);
+    /**
+     * Executes the queued commands and replies to the client with the array of their results.
+     */
+    void onExecuteTransaction(List<List<ByteString>> commandList, SocketChannel channel);
+
+    void sendResponse(SocketChannel channel, ByteBuffer response);
 
 }
@@ -2,6 +2,7 @@ package commands.transaction;
 
 import lombok.Getter;
 import lombok.Setter;
+import store.types.ByteString;
 
 import java.nio.channels.SocketChannel;
 import java.util.HashMap;
@@ -12,7 +13,7 @@ import java.util.Map;
 @Getter
 @Setter
 public class TransactionalClientManager {
-    private Map<SocketChannel, List<List<String>>> transactions;
+    private Map<SocketChannel, List<List<ByteString>>> transactions;
 
     public TransactionalClientManager() {
         this.transactions = new HashMap<>();
@@ -22,8 +23,9 @@ public class TransactionalClientManager {
         this.transactions.put(channel, new LinkedList<>());
     }
 
-    public void queueCommand(List<String> command, SocketChannel channel) {
-        this.transactions.get(channel).add(command);
+    public void queueCommand(List<ByteString> command, SocketChannel channel) {
+        // queued commands run after their read buffer has been reused
+        this.transactions.get(channel).add(ByteString.copyAll(command));
     }
 
     public void removeTransaction(SocketChannel channel) {
@@ -34,7 +36,7 @@ public class TransactionalClientManager {
         return this.transactions.containsKey(channel);
     }
 
-    public List<List<String>> getCommands(SocketChannel channel) {
+    public List<List<ByteString>> getCommands(SocketChannel channel) {
         return this.transactions.get(channel);
     }
 }
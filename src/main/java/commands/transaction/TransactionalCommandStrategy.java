@@ -1,10 +1,12 @@
 package commands.transaction;
 
+import store.types.ByteString;
+
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.List;
 
 public interface TransactionalCommandStrategy {
 
-    ByteBuffer execute(List<String> args, SocketChannel channel);
+    ByteBuffer execute(List<ByteString> args, SocketChannel channel);
 }
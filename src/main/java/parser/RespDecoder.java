@@ -0,0 +1,193 @@
+package parser;
+
+import parser.exceptions.ProtocolException;
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stateful RESP decoder, one instance per client connection.
+ * Commands may arrive split across several reads, so the decoder remembers
+ * how far it got in the current command and resumes from there on the next read.
+ * Bytes belonging to an incomplete element are never consumed: the caller is expected
+ * to compact the buffer and read more data into it before decoding again.
+ * <p>
+ * Headers are parsed straight from the buffer's bytes, without building strings or boxing
+ * their lengths, so decoding a command only allocates its argument list and argument views.
+ */
+public class RespDecoder {
+
+    private static final byte ARRAY = '*';
+    private static final byte BULK_STRING = '$';
+
+    // returned by readHeader while the header's CRLF has not arrived yet
+    private static final long INCOMPLETE = Long.MIN_VALUE;
+    // longer headers can not hold a valid length
+    private static final int MAX_HEADER_DIGITS = 10;
+    private static final int MAX_PREALLOCATED_ARGS = 1024;
+    // like redis' proto-max-bulk-len, also keeps the length and its CRLF within an int
+    private static final int MAX_BULK_LENGTH = 512 * 1024 * 1024;
+
+    private enum State {
+        ARRAY_HEADER,
+        BULK_HEADER,
+        BULK_BODY
+    }
+
+    private State state = State.ARRAY_HEADER;
+    private List<ByteString> args;
+    private int remainingElements;
+    private int bulkLength;
+
+    /**
+     * Decodes the next complete command from the buffer.
+     * The buffer must be in read mode; its position is advanced past every fully decoded element.
+     * @param buffer the connection's read buffer
+     * @return the command and its arguments, or null if the buffer does not hold a complete command yet.
+     * Arguments decoded from a heap buffer are slices of it, valid until the buffer is compacted
+     * @throws ProtocolException if the input is not a valid RESP array of bulk strings
+     */
+    public List<ByteString> decode(ByteBuffer buffer) {
+        while (true) {
+            switch (state) {
+                case ARRAY_HEADER -> {
+                    var elements = readHeader(buffer, ARRAY, Integer.MAX_VALUE);
+                    if (elements == INCOMPLETE) {
+                        return null;
+                    }
+                    if (elements <= 0) {
+                        // null or empty arrays carry no command, skip them
+                        continue;
+                    }
+                    // the announced count is not trusted to size the list
+                    args = new ArrayList<>((int) Math.min(elements, MAX_PREALLOCATED_ARGS));
+                    remainingElements = (int) elements;
+                    state = State.BULK_HEADER;
+                }
+                case BULK_HEADER -> {
+                    var length = readHeader(buffer, BULK_STRING, MAX_BULK_LENGTH);
+                    if (length == INCOMPLETE) {
+                        detachArgs();
+                        return null;
+                    }
+                    if (length < 0) {
+                        throw new ProtocolException("invalid bulk length");
+                    }
+                    bulkLength = (int) length;
+                    state = State.BULK_BODY;
+                }
+                case BULK_BODY -> {
+                    if (buffer.remaining() < (long) bulkLength + 2) { // +2 for CRLF
+                        detachArgs();
+                        return null;
+                    }
+
+                    var bulkString = ByteString.read(buffer, bulkLength);
+
+                    if (buffer.get() != '\r' || buffer.get() != '\n') {
+                        throw new ProtocolException("CRLF terminator incomplete or doesn't exist");
+                    }
+                    args.add(bulkString);
+
+                    if (--remainingElements > 0) {
+                        state = State.BULK_HEADER;
+                        continue;
+                    }
+
+                    var command = args;
+                    reset();
+                    return command;
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of bytes the decoder needs to see in the buffer before it can make progress
+     * on the element it is currently waiting for. Unknown lengths (headers) are reported as 0.
+     * @return the minimum number of readable bytes needed
+     */
+    public int bytesNeeded() {
+        return state == State.BULK_BODY ? bulkLength + 2 : 0;
+    }
+
+    /**
+     * The buffer is compacted before the rest of the command arrives,
+     * so the arguments decoded so far can no longer point into it.
+     * Each argument is copied at most once, however many reads the command spans.
+     */
+    private void detachArgs() {
+        this.args.replaceAll(ByteString::copy);
+    }
+
+    private void reset() {
+        this.state = State.ARRAY_HEADER;
+        this.args = null;
+        this.remainingElements = 0;
+        this.bulkLength = 0;
+    }
+
+    /**
+     * Reads a type byte followed by a signed decimal number and CRLF.
+     * Nothing is consumed if the header is not complete yet.
+     * @param maxValue the largest number accepted, so that the caller's arithmetic on it can not overflow
+     * @return the number in the header, or INCOMPLETE if the CRLF has not arrived yet
+     */
+    private static long readHeader(ByteBuffer buffer, byte expectedType, int maxValue) {
+        var start = buffer.position();
+        var limit = buffer.limit();
+        if (start == limit) {
+            return INCOMPLETE;
+        }
+
+        var typeByte = buffer.get(start);
+        if (typeByte != expectedType) {
+            throw new ProtocolException(
+                    String.format("expected '%c', got '%c'", (char) expectedType, (char) typeByte)
+            );
+        }
+
+        var i = start + 1;
+        var negative = false;
+        if (i < limit && buffer.get(i) == '-') {
+            negative = true;
+            i++;
+        }
+
+        long value = 0;
+        var digits = 0;
+        for (; i < limit; i++) {
+            var b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > MAX_HEADER_DIGITS) {
+                    throw new ProtocolException("invalid length, too many digits");
+                }
+                value = value * 10 + (b - '0');
+                continue;
+            }
+
+            if (b != '\r') {
+                throw new ProtocolException(String.format("invalid character '%c' in length", (char) b));
+            }
+            if (i + 1 == limit) {
+                return INCOMPLETE;
+            }
+            if (buffer.get(i + 1) != '\n') {
+                throw new ProtocolException("CR not followed by LF");
+            }
+            if (digits == 0) {
+                throw new ProtocolException("invalid length, no digits");
+            }
+
+            value = negative ? -value : value;
+            if (value > maxValue) {
+                throw new ProtocolException("invalid length " + value);
+            }
+            buffer.position(i + 2);
+            return value;
+        }
+        return INCOMPLETE;
+    }
+}
@@ -0,0 +1,12 @@
+package parser.exceptions;
+
+public class ProtocolException extends RuntimeException {
+
+    public ProtocolException(String message) {
+        super(message);
+    }
+
+    public ProtocolException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,95 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pool of buffers used for socket I/O, organised in power-of-two size classes
+ * from {@link #MIN_CAPACITY} up to {@link #MAX_POOLED_CAPACITY}.
+ * Requests larger than the biggest class get a dedicated buffer that is not recycled.
+ * The pool is not thread-safe: every event loop owns its own instance.
+ */
+public class BufferPool {
+    public static final int MIN_CAPACITY = 1024;
+    public static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CAPACITY);
+    private static final int MAX_SHIFT = Integer.numberOfTrailingZeros(MAX_POOLED_CAPACITY);
+    // bytes kept idle per size class, so big classes hold fewer buffers than small ones
+    private static final int MAX_IDLE_BYTES_PER_CLASS = 4 * 1024 * 1024;
+
+    private final Deque<ByteBuffer>[] freeLists;
+    private final boolean direct;
+
+    /**
+     * @param direct whether the pool hands out direct or heap buffers
+     */
+    @SuppressWarnings("unchecked")
+    public BufferPool(boolean direct) {
+        this.direct = direct;
+        this.freeLists = new Deque[MAX_SHIFT - MIN_SHIFT + 1];
+        for (int i = 0; i < this.freeLists.length; i++) {
+            this.freeLists[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Returns a cleared buffer with at least the requested capacity.
+     * @param minCapacity the minimum capacity needed
+     * @return a buffer, recycled when one of the right size class is available
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        var capacity = sizeClass(minCapacity);
+        if (capacity > MAX_POOLED_CAPACITY) {
+            return allocate(minCapacity);
+        }
+
+        var recycled = this.freeLists[classIndex(capacity)].pollFirst();
+        return recycled != null ? recycled : allocate(capacity);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return this.direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Gives a buffer back to the pool. Buffers that do not belong to a size class are dropped.
+     * The caller must not use the buffer afterwards.
+     * @param buffer the buffer to recycle
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.isDirect() != this.direct || buffer.isReadOnly()) {
+            return;
+        }
+
+        var capacity = buffer.capacity();
+        if (capacity < MIN_CAPACITY || capacity > MAX_POOLED_CAPACITY || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+
+        var freeList = this.freeLists[classIndex(capacity)];
+        if ((long) (freeList.size() + 1) * capacity <= MAX_IDLE_BYTES_PER_CLASS) {
+            freeList.addFirst(buffer.clear());
+        }
+    }
+
+    /**
+     * Rounds a capacity up to its size class.
+     * @param capacity the requested capacity
+     * @return the smallest size class holding the capacity
+     */
+    public static int sizeClass(int capacity) {
+        if (capacity <= MIN_CAPACITY) {
+            return MIN_CAPACITY;
+        }
+        if (capacity > MAX_POOLED_CAPACITY) {
+            return capacity;
+        }
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private static int classIndex(int capacity) {
+        return Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+    }
+}
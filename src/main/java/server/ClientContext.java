@@ -0,0 +1,248 @@
+package server;
+
+import commands.ChunkedReply;
+import lombok.Getter;
+import lombok.Setter;
+import parser.RespDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Per-connection state, attached to the client's selection key.
+ * Only the event loop owning the connection touches this object.
+ */
+@Getter
+class ClientContext {
+    // upper bound for the number of buffers handed to a single gathering write
+    private static final int MAX_WRITE_BATCH = 128;
+    // bytes a single flush writes before it stops encoding the chunks of a large reply
+    private static final long MAX_STREAMED_BYTES_PER_FLUSH = 64 * 1024;
+
+    private final SocketChannel channel;
+    private ByteBuffer readBuffer;
+    private final RespDecoder decoder = new RespDecoder();
+    // statistics shared with commands like CLIENT LIST, running on other threads
+    private final ClientInfo info;
+
+    // replies waiting to be written, kept in the order the commands were executed
+    private final Deque<ByteBuffer> outputQueue = new ArrayDeque<>();
+    // chunked replies still being encoded, by the chunk of theirs currently in the queue
+    private final Map<ByteBuffer, ChunkedReply> chunkedReplies = new IdentityHashMap<>();
+    private ByteBuffer[] writeBatch = new ByteBuffer[8];
+    private long outputBytes;
+
+    @Setter
+    private boolean flushScheduled;
+    @Setter
+    private long softLimitReachedMillis;
+    // set when the client broke a limit, it gets no more output and is closed by its loop
+    @Setter
+    private boolean closeAsap;
+    // set when the client has to be dropped once the replies already queued for it are written,
+    // nothing is read from it or queued for it anymore
+    @Setter
+    private boolean closeAfterReply;
+
+    public ClientContext(SocketChannel channel, ByteBuffer readBuffer, ClientInfo info) {
+        this.channel = channel;
+        this.readBuffer = readBuffer;
+        this.info = info;
+    }
+
+    public long getLastInteractionMillis() {
+        return this.info.getLastInteractionMillis();
+    }
+
+    /**
+     * Records a read from the client.
+     * @param bytesRead the number of bytes read
+     * @param nowMillis the current time in epoch millis
+     */
+    public void onRead(int bytesRead, long nowMillis) {
+        this.info.setLastInteractionMillis(nowMillis);
+        this.info.addBytesIn(bytesRead);
+    }
+
+    /**
+     * Publishes the buffer sizes of the client, once per read and per flush,
+     * rather than on every buffer operation.
+     * The read buffer is expected in write mode.
+     */
+    public void updateBufferStats() {
+        if (this.readBuffer != null) {
+            this.info.setQueryBufferBytes(this.readBuffer.position());
+            this.info.setQueryBufferFree(this.readBuffer.remaining());
+        }
+        this.info.setOutputListLength(this.outputQueue.size());
+        this.info.setOutputBytes(this.outputBytes);
+    }
+
+    /**
+     * Makes room in the read buffer for the rest of the command currently being decoded.
+     * The buffer is expected in write mode, holding only the unconsumed bytes.
+     * It is swapped for a bigger one when the pending element can not fit in it,
+     * or when it is full and the decoder still waits for the end of a header.
+     * @param pool the pool of the owning event loop
+     */
+    public void ensureReadCapacity(BufferPool pool) {
+        var capacity = grownReadCapacity();
+        if (capacity > 0) {
+            pool.release(replaceReadBuffer(pool.acquire(capacity)));
+        }
+    }
+
+    /**
+     * Same as {@link #ensureReadCapacity(BufferPool)}, for a connection that owns its thread
+     * and allocates its read buffers itself: the replaced buffer is left to the garbage collector.
+     */
+    public void ensureReadCapacity() {
+        var capacity = grownReadCapacity();
+        if (capacity > 0) {
+            replaceReadBuffer(ByteBuffer.allocate(capacity));
+        }
+    }
+
+    /**
+     * @return the capacity the read buffer has to grow to, or 0 if it has enough room
+     */
+    private int grownReadCapacity() {
+        var capacity = this.readBuffer.capacity();
+        var needed = this.decoder.bytesNeeded();
+
+        if (needed <= capacity && this.readBuffer.hasRemaining()) {
+            return 0;
+        }
+        return Math.max(needed, capacity * 2);
+    }
+
+    /**
+     * Gives an oversized read buffer back to the pool once it holds no unconsumed bytes.
+     * @param pool the pool of the owning event loop
+     * @return true if the buffer was shrunk
+     */
+    public boolean shrinkReadBuffer(BufferPool pool) {
+        if (this.readBuffer.position() > 0 || this.readBuffer.capacity() <= BufferPool.MIN_CAPACITY) {
+            return false;
+        }
+
+        pool.release(replaceReadBuffer(pool.acquire(BufferPool.MIN_CAPACITY)));
+        return true;
+    }
+
+    public void releaseBuffers(BufferPool pool) {
+        pool.release(this.readBuffer);
+        this.readBuffer = null;
+        this.outputQueue.clear();
+        this.chunkedReplies.clear();
+        this.outputBytes = 0;
+    }
+
+    /**
+     * Moves the unconsumed bytes to the replacement buffer.
+     * @return the replaced buffer
+     */
+    private ByteBuffer replaceReadBuffer(ByteBuffer replacement) {
+        var replaced = this.readBuffer;
+        replaced.flip();
+        replacement.put(replaced);
+        this.readBuffer = replacement;
+        return replaced;
+    }
+
+    public void enqueue(ByteBuffer response) {
+        this.outputQueue.addLast(response);
+        this.outputBytes += response.remaining();
+    }
+
+    public boolean hasPendingOutput() {
+        return !this.outputQueue.isEmpty();
+    }
+
+    /**
+     * Queues a reply encoded chunk by chunk. Its first chunk is encoded right away,
+     * every following one once the previous chunk has been written.
+     */
+    public void enqueue(ChunkedReply reply) {
+        var chunk = reply.nextChunk();
+        enqueue(chunk);
+        if (reply.hasNextChunk()) {
+            this.chunkedReplies.put(chunk, reply);
+        }
+    }
+
+    /**
+     * Writes as much of the queued output as the socket accepts, with gathering writes
+     * of up to {@link #MAX_WRITE_BATCH} buffers. A new batch is only written when the socket
+     * took the whole previous one, as a multi-part reply may queue more buffers than a batch holds.
+     * Once {@link #MAX_STREAMED_BYTES_PER_FLUSH} bytes are written, the flush stops before
+     * encoding more chunks, so that a client streaming a large reply does not starve the others.
+     * Fully written buffers are dropped from the queue.
+     * @return the number of bytes written
+     * @throws IOException if the write fails
+     */
+    public long flush() throws IOException {
+        long written = 0;
+        while (!this.outputQueue.isEmpty()) {
+            var batchSize = Math.min(this.outputQueue.size(), MAX_WRITE_BATCH);
+            if (this.writeBatch.length < batchSize) {
+                this.writeBatch = new ByteBuffer[Math.min(batchSize * 2, MAX_WRITE_BATCH)];
+            }
+
+            long batchBytes = 0;
+            var i = 0;
+            for (var response : this.outputQueue) {
+                if (i == batchSize) {
+                    break;
+                }
+                this.writeBatch[i++] = response;
+                batchBytes += response.remaining();
+            }
+
+            var batchWritten = this.channel.write(this.writeBatch, 0, batchSize);
+            Arrays.fill(this.writeBatch, 0, batchSize, null);
+            this.outputBytes -= batchWritten;
+            this.info.addBytesOut(batchWritten);
+            written += batchWritten;
+
+            var encodedChunk = dropWrittenBuffers();
+            if (batchWritten < batchBytes) {
+                // the socket buffer is full
+                break;
+            }
+            if (encodedChunk && written >= MAX_STREAMED_BYTES_PER_FLUSH) {
+                break;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Removes the fully written buffers from the head of the queue.
+     * When one of them was the current chunk of a chunked reply, the next chunk takes its place.
+     * @return true if a chunk was encoded
+     */
+    private boolean dropWrittenBuffers() {
+        var encodedChunk = false;
+        while (!this.outputQueue.isEmpty() && !this.outputQueue.peekFirst().hasRemaining()) {
+            var written = this.outputQueue.pollFirst();
+            var reply = this.chunkedReplies.isEmpty() ? null : this.chunkedReplies.remove(written);
+            if (reply != null) {
+                var chunk = reply.nextChunk();
+                this.outputQueue.addFirst(chunk);
+                this.outputBytes += chunk.remaining();
+                if (reply.hasNextChunk()) {
+                    this.chunkedReplies.put(chunk, reply);
+                }
+                encodedChunk = true;
+            }
+        }
+        return encodedChunk;
+    }
+}
@@ -0,0 +1,116 @@
+package server;
+
+import commands.Command;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Statistics of a client connection, as reported by CLIENT LIST and CLIENT INFO.
+ * The thread serving the connection is the only writer of the counters,
+ * commands running on any other thread only read them.
+ */
+@Getter
+public class ClientInfo {
+    private final long id;
+    private final SocketChannel channel;
+    private final String address;
+    private final String localAddress;
+    private final long createdMillis = System.currentTimeMillis();
+    // asks the thread owning the connection to close it
+    private final Runnable closer;
+
+    @Setter
+    private volatile String name = "";
+    @Setter
+    private volatile long lastInteractionMillis = this.createdMillis;
+    // the resolved command rather than its name, nothing is allocated per command
+    private volatile Command lastCommand;
+    @Setter
+    private volatile boolean blocked;
+
+    @Setter
+    private volatile int queryBufferBytes;
+    @Setter
+    private volatile int queryBufferFree;
+    @Setter
+    private volatile int outputListLength;
+    @Setter
+    private volatile long outputBytes;
+
+    private volatile long totalBytesIn;
+    private volatile long totalBytesOut;
+    private volatile long totalCommands;
+
+    ClientInfo(long id, SocketChannel channel, Runnable closer) {
+        this.id = id;
+        this.channel = channel;
+        this.closer = closer;
+        this.address = formatAddress(channel, true);
+        this.localAddress = formatAddress(channel, false);
+    }
+
+    void addBytesIn(long bytes) {
+        this.totalBytesIn += bytes;
+    }
+
+    void addBytesOut(long bytes) {
+        this.totalBytesOut += bytes;
+    }
+
+    /**
+     * @param command the command about to run, null if it is unknown
+     */
+    public void commandExecuted(Command command) {
+        this.lastCommand = command;
+        this.totalCommands++;
+    }
+
+    /**
+     * Closes the connection on the thread owning it, once the replies already queued are sent.
+     */
+    public void kill() {
+        this.closer.run();
+    }
+
+    /**
+     * @param nowMillis the current time in epoch millis, used for the age and idle fields
+     * @return the client described in the CLIENT LIST format
+     */
+    public String describe(long nowMillis) {
+        var command = this.lastCommand == null ? "NULL" : this.lastCommand.toString();
+        return "id=" + this.id +
+                " addr=" + this.address +
+                " laddr=" + this.localAddress +
+                " name=" + this.name +
+                " age=" + (nowMillis - this.createdMillis) / 1000 +
+                " idle=" + (nowMillis - this.lastInteractionMillis) / 1000 +
+                " flags=" + (this.blocked ? "b" : "N") +
+                " db=0" +
+                " qbuf=" + this.queryBufferBytes +
+                " qbuf-free=" + this.queryBufferFree +
+                " oll=" + this.outputListLength +
+                " omem=" + this.outputBytes +
+                " tot-net-in=" + this.totalBytesIn +
+                " tot-net-out=" + this.totalBytesOut +
+                " tot-cmds=" + this.totalCommands +
+                " cmd=" + command;
+    }
+
+    private static String formatAddress(SocketChannel channel, boolean remote) {
+        try {
+            SocketAddress address = remote ? channel.getRemoteAddress() : channel.getLocalAddress();
+            if (address instanceof InetSocketAddress inetAddress) {
+                return inetAddress.getHostString() + ":" + inetAddress.getPort();
+            }
+            // unix domain sockets have no port, redis reports them as path:0
+            return (address == null ? "" : address.toString()) + ":0";
+        } catch (IOException e) {
+            return "?:0";
+        }
+    }
+}
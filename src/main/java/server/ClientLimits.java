@@ -0,0 +1,53 @@
+package server;
+
+import static server.Configuration.*;
+
+/**
+ * Limits enforced on every client connection.
+ * @param output output buffer limits
+ * @param idleTimeoutMillis connections idle for longer are closed, 0 disables the check
+ * @param queryBufferLimit maximum size of a client's unparsed input, 0 disables the check
+ * @param readPauseBytes reading from a client stops while it has more output pending, 0 never pauses
+ */
+record ClientLimits(OutputBufferLimits output, long idleTimeoutMillis, long queryBufferLimit, long readPauseBytes) {
+
+    static ClientLimits from(Configuration configuration) {
+        var settings = configuration.getSettings();
+        return new ClientLimits(
+                OutputBufferLimits.parse(settings.get(CLIENT_OUTPUT_BUFFER_LIMIT)),
+                Long.parseLong(settings.get(TIMEOUT)) * 1000,
+                OutputBufferLimits.parseBytes(settings.get(CLIENT_QUERY_BUFFER_LIMIT)),
+                OutputBufferLimits.parseBytes(settings.get(CLIENT_OUTPUT_READ_PAUSE))
+        );
+    }
+
+    /**
+     * Blocked clients are idle on purpose, and are never closed for it.
+     * @return true if the client has been idle for longer than the timeout
+     */
+    boolean isIdleTimedOut(ClientInfo client, long nowMillis) {
+        return this.idleTimeoutMillis > 0
+                && !client.isBlocked()
+                && nowMillis - client.getLastInteractionMillis() > this.idleTimeoutMillis;
+    }
+
+    /**
+     * @param unparsedBytes bytes read from the client and not decoded yet
+     * @param pendingElementBytes size of the element the decoder is waiting for
+     * @return true if the client's input would grow past the query buffer limit
+     */
+    boolean isQueryBufferExceeded(long unparsedBytes, long pendingElementBytes) {
+        return this.queryBufferLimit > 0
+                && (unparsedBytes > this.queryBufferLimit || pendingElementBytes > this.queryBufferLimit);
+    }
+
+    /**
+     * Reads are paused while the client does not consume its replies fast enough,
+     * so that it can not make the server buffer an unbounded amount of output.
+     * @return true if the loop should stop reading from this client
+     */
+    boolean isReadPaused(ClientContext client) {
+        return client.isCloseAfterReply()
+                || (this.readPauseBytes > 0 && client.getOutputBytes() > this.readPauseBytes);
+    }
+}
@@ -0,0 +1,94 @@
+package server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.channels.SocketChannel;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static server.Configuration.BLOCKED_CLIENTS;
+import static server.Configuration.CONNECTED_CLIENTS;
+
+/**
+ * Every client connected to the server, whichever event loop or virtual thread serves it.
+ * Keeps the clients section of the configuration up to date for INFO.
+ */
+@Slf4j
+public class ClientRegistry {
+
+    private final Map<SocketChannel, ClientInfo> clients = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicInteger blockedClients = new AtomicInteger();
+    private final Configuration configuration;
+
+    public ClientRegistry(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * @param channel the accepted client channel
+     * @param closer closes the connection on the thread that owns it
+     * @return the statistics of the new client
+     */
+    public ClientInfo register(SocketChannel channel, Runnable closer) {
+        var client = new ClientInfo(this.nextId.incrementAndGet(), channel, closer);
+        this.clients.put(channel, client);
+        updateClientsSection();
+        return client;
+    }
+
+    public void unregister(ClientInfo client) {
+        if (this.clients.remove(client.getChannel()) == null) {
+            return;
+        }
+        if (client.isBlocked()) {
+            this.blockedClients.decrementAndGet();
+        }
+        updateClientsSection();
+    }
+
+    public ClientInfo get(SocketChannel channel) {
+        return this.clients.get(channel);
+    }
+
+    public ClientInfo get(long id) {
+        for (var client : this.clients.values()) {
+            if (client.getId() == id) {
+                return client;
+            }
+        }
+        return null;
+    }
+
+    public Collection<ClientInfo> getClients() {
+        return this.clients.values();
+    }
+
+    /**
+     * Flags a client as blocked (BLPOP, XREAD BLOCK) or released.
+     * @param channel the client's channel
+     * @param blocked whether the client is now waiting
+     */
+    public void setBlocked(SocketChannel channel, boolean blocked) {
+        var client = this.clients.get(channel);
+        if (client == null || client.isBlocked() == blocked) {
+            return;
+        }
+        client.setBlocked(blocked);
+        if (blocked) {
+            this.blockedClients.incrementAndGet();
+        } else {
+            this.blockedClients.decrementAndGet();
+        }
+        updateClientsSection();
+    }
+
+    private synchronized void updateClientsSection() {
+        var section = this.configuration.getClients();
+        section.put(CONNECTED_CLIENTS, String.valueOf(this.clients.size()));
+        section.put(BLOCKED_CLIENTS, String.valueOf(this.blockedClients.get()));
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Setter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Getter
 @Setter
@@ -13,10 +14,12 @@ public class Configuration {
     private Map<String, String> clients;
     private Map<String, String> replication;
     private Map<String, String> server;
-    private Map<String, String> memory;
+    private Map<String, String> stats;
+    private Map<String, String> settings;
 
 //    CLIENTS
     public static final String CONNECTED_CLIENTS = "connected_clients";
+    public static final String BLOCKED_CLIENTS = "blocked_clients";
 
 //    REPLICATION
     public static final String CONNECTED_SLAVES = "connected_slaves";
@@ -26,14 +29,37 @@ public class Configuration {
     public static final String MASTER_REPLID = "master_replid";
     public static final String MASTER_REPL_OFFSET = "master_repl_offset";
 
+//    STATS
+    public static final String EXPIRED_KEYS = "expired_keys";
+    public static final String EXPIRED_STALE_PERC = "expired_stale_perc";
+
 //    SERVER
     public static final String TCP_PORT = "tcp_port";
+    public static final String IO_THREADS = "io_threads";
+    public static final String SERVER_MODE = "server_mode";
+    public static final String UNIX_SOCKET = "unixsocket";
+    public static final String UNIX_SOCKET_PERM = "unixsocketperm";
+
+    public static final String EVENT_LOOP_MODE = "event-loop";
+    public static final String VIRTUAL_THREADS_MODE = "virtual-threads";
+
+//    SETTINGS (tunables, not reported by INFO)
+    public static final String CLIENT_OUTPUT_BUFFER_LIMIT = "client-output-buffer-limit";
+    public static final String CLIENT_QUERY_BUFFER_LIMIT = "client-query-buffer-limit";
+    public static final String CLIENT_OUTPUT_READ_PAUSE = "client-output-read-pause";
+    public static final String TIMEOUT = "timeout";
+    public static final String SLOWLOG_LOG_SLOWER_THAN = "slowlog-log-slower-than";
+    public static final String SLOWLOG_MAX_LEN = "slowlog-max-len";
+    public static final String ACTIVE_EXPIRE_EFFORT = "active-expire-effort";
+    public static final String PRECISE_CLOCK = "precise-clock";
 
 
     public Configuration() {
         initClientsSection();
         initReplicationSection();
         initServerSection();
+        initStatsSection();
+        initSettings();
     }
 
     public Map<String, Map<String, String>> getFullConfig() {
@@ -41,13 +67,15 @@ public class Configuration {
         fullConfig.put("clients", this.clients);
         fullConfig.put("replication", this.replication);
         fullConfig.put("server", this.server);
-        fullConfig.put("memory", this.memory);
+        fullConfig.put("stats", this.stats);
         return fullConfig;
     }
 
     private void initClientsSection() {
-        this.clients = new HashMap<>();
+        // updated by the I/O threads as clients connect and disconnect
+        this.clients = new ConcurrentHashMap<>();
         this.clients.put(CONNECTED_CLIENTS, "0");
+        this.clients.put(BLOCKED_CLIENTS, "0");
     }
 
     private void initReplicationSection() {
@@ -63,11 +91,32 @@ public class Configuration {
     private void initServerSection() {
         this.server = new HashMap<>();
         this.server.put(TCP_PORT, "6379");
+        this.server.put(IO_THREADS, "1");
+        this.server.put(SERVER_MODE, EVENT_LOOP_MODE);
+    }
+
+    private void initStatsSection() {
+        // updated by the active expiry cycle
+        this.stats = new ConcurrentHashMap<>();
+        this.stats.put(EXPIRED_KEYS, "0");
+        this.stats.put(EXPIRED_STALE_PERC, "0.00");
     }
 
-    private void initMemorySection() {
-        this.memory = new HashMap<>();
-        this.memory.put(CONNECTED_CLIENTS, "0");
+    private void initSettings() {
+        this.settings = new HashMap<>();
+        this.settings.put(CLIENT_OUTPUT_BUFFER_LIMIT, OutputBufferLimits.DEFAULT_LIMITS);
+        this.settings.put(CLIENT_QUERY_BUFFER_LIMIT, "1gb");
+        // reading from a client stops while this much of its output is still unsent, 0 never pauses
+        this.settings.put(CLIENT_OUTPUT_READ_PAUSE, "1mb");
+        // idle client timeout in seconds, 0 keeps idle clients forever
+        this.settings.put(TIMEOUT, "0");
+        // commands taking at least this many microseconds are logged, a negative value disables the slow log
+        this.settings.put(SLOWLOG_LOG_SLOWER_THAN, "10000");
+        this.settings.put(SLOWLOG_MAX_LEN, "128");
+        // from 1 to 10, how much CPU the active expiry cycle may spend to reclaim expired keys
+        this.settings.put(ACTIVE_EXPIRE_EFFORT, "1");
+        // "yes" reads the system clock on every expiry check instead of the time cached once per loop iteration
+        this.settings.put(PRECISE_CLOCK, "no");
     }
 
     private String generateMasterReplid() {
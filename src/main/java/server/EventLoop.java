@@ -1,12 +1,12 @@
 package server;
 
-import commands.Command;
+import commands.ChunkedReply;
 import commands.async.AsyncCommandObserver;
 import commands.CommandHandler;
-import commands.async.BlockedClient;
 import lombok.extern.slf4j.Slf4j;
-import parser.Parser;
-import store.KeyValueStore;
+import parser.exceptions.ProtocolException;
+import store.ActiveExpiry;
+import store.types.ByteString;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -15,51 +15,144 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.time.Instant;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Objects;
-import java.util.Set;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+
+import static commands.ProtocolUtils.encodeSimpleError;
 
-import static commands.ProtocolUtils.NULL_LIST;
 
 @Slf4j
 class EventLoop implements AsyncCommandObserver {
 
     private ServerSocketChannel serverSocketChannel;
+    private ServerSocketChannel unixSocketChannel;
     private Selector selector;
+    private Thread loopThread;
 
     private final CommandHandler executor;
-    private final Parser parser;
-
-    public EventLoop(Parser parser, KeyValueStore kvStore,  Configuration configuration) {
-        this.parser = parser;
-        this.executor = new CommandHandler(kvStore, this, configuration);
+    private final ResponseRouter router;
+    private final ClientRegistry clients;
+    private final ClientLimits limits;
+    // commands from every loop run one at a time against the shared store
+    private final Lock executionLock;
+    // the loop accepting connections also handles server-wide timers
+    private boolean acceptor;
+
+    // loops sharing the accepted connections, including this one
+    private List<EventLoop> reactors = List.of(this);
+    private int nextReactor;
+    // connections accepted by another loop, registered with this loop's selector on its own thread
+    private final Queue<SocketChannel> adoptedClients = new ConcurrentLinkedQueue<>();
+    // commands decoded from one read, executed while holding the lock once.
+    // their arguments point into the read buffer, which is only compacted once all of them ran
+    private final List<List<ByteString>> decodedCommands = new ArrayList<>();
+
+    // periodic housekeeping of the loop's connections
+    private static final long CRON_INTERVAL_MILLIS = 1000;
+    // read buffers of clients quiet for this long are shrunk back to the smallest size class
+    private static final long IDLE_BUFFER_MILLIS = 2000;
+    private long lastCronMillis = System.currentTimeMillis();
+    private long lastServerCronMillis = System.currentTimeMillis();
+
+    // heap read buffers, so that decoded arguments are slices of them instead of copies
+    private final BufferPool bufferPool = new BufferPool(false);
+
+    // clients with replies queued since the last flush, written once per loop iteration
+    private final Deque<ClientContext> pendingFlush = new ArrayDeque<>();
+    // replies produced outside the loop thread, handed over to the loop before flushing
+    private final Queue<PendingResponse> foreignResponses = new ConcurrentLinkedQueue<>();
+    // connections killed by CLIENT KILL, closed after their pending replies are flushed
+    private final Queue<SocketChannel> closeRequests = new ConcurrentLinkedQueue<>();
+
+    private record PendingResponse(SocketChannel channel, ChunkedReply response) {}
+
+    public EventLoop(CommandHandler executor, ResponseRouter router, ClientRegistry clients,
+                     Lock executionLock, ClientLimits limits) {
+        this.executor = executor;
+        this.router = router;
+        this.clients = clients;
+        this.limits = limits;
+        this.executionLock = executionLock;
     }
 
     /**
-     * Callback for async commands to register responses for waiting clients
+     * Callback for commands to register responses for their clients.
+     * Responses are only queued here, they are written at the end of the current loop iteration.
+     * The selector is woken up only when the response comes from another thread.
      * @param channel client's socket channel
      * @param response the response
      */
     @Override
     public void onResponseReady(SocketChannel channel, ByteBuffer response) {
-        try {
-            channel.register(this.selector, SelectionKey.OP_WRITE,  response);
-            selector.wakeup();
-        } catch (IOException e) {
-            log.error("Could not register response");
+        if (Thread.currentThread() != this.loopThread) {
+            this.foreignResponses.add(new PendingResponse(channel, ChunkedReply.of(response)));
+            this.selector.wakeup();
+            return;
+        }
+        queueResponse(channel, response);
+    }
+
+    @Override
+    public void onResponseReady(SocketChannel channel, List<ByteBuffer> response) {
+        if (Thread.currentThread() != this.loopThread) {
+            this.foreignResponses.add(new PendingResponse(channel, ChunkedReply.of(response)));
+            this.selector.wakeup();
+            return;
         }
+        queueResponse(channel, response);
+    }
+
+    @Override
+    public void onResponseReady(SocketChannel channel, ChunkedReply response) {
+        if (Thread.currentThread() != this.loopThread) {
+            this.foreignResponses.add(new PendingResponse(channel, response));
+            this.selector.wakeup();
+            return;
+        }
+        queueResponse(channel, response);
+    }
+
+    /**
+     * Opens the selector of this loop. Every loop has to be opened before any of them runs.
+     * @throws IOException if the selector can not be opened
+     */
+    public void open() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Sets the loops between which accepted connections are distributed, round-robin.
+     * Only relevant for the loop that accepts connections.
+     * @param reactors all the loops of the server
+     */
+    public void setReactors(List<EventLoop> reactors) {
+        this.reactors = List.copyOf(reactors);
+    }
+
+    /**
+     * Hands over a connection accepted by another loop.
+     * The channel is registered with this loop's selector on the next iteration.
+     * @param clientSocket the accepted, non-blocking client channel
+     */
+    public void adopt(SocketChannel clientSocket) {
+        this.adoptedClients.add(clientSocket);
+        this.selector.wakeup();
     }
 
     /**
      * This method configures the server socket and registers it with the selector.
+     * The loop becomes the acceptor of the server.
      * @param port The port to bind the server to.
      *
      */
     public void configure(String host, int port) {
         try {
-            this.selector = Selector.open();
+            if (this.selector == null) {
+                open();
+            }
+            this.acceptor = true;
             this.serverSocketChannel = ServerSocketChannel.open();
             this.serverSocketChannel.configureBlocking(false);
             this.serverSocketChannel.bind(new InetSocketAddress(host, port));
@@ -70,17 +163,45 @@ class EventLoop implements AsyncCommandObserver {
         }
     }
 
+    /**
+     * Binds an additional unix domain socket listener on this loop's selector,
+     * for clients running on the same host.
+     * @param path the socket file path
+     * @param permissions octal permissions of the socket file, or null to keep the default ones
+     */
+    public void configureUnixSocket(Path path, String permissions) {
+        try {
+            if (this.selector == null) {
+                open();
+            }
+            this.acceptor = true;
+            this.unixSocketChannel = UnixSocketUtils.bind(path, permissions);
+            this.unixSocketChannel.configureBlocking(false);
+            this.unixSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+            log.info("Server listening on unix socket {} ...", path);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Error while configuring the unix socket...{}", e.getMessage());
+        }
+    }
+
     /**
      * Main event loop for the socket server. Continuously monitors and handles I/O operations.
      *
      * @throws IOException if an I/O error occurs during processing
      */
     public void run() throws IOException {
+        this.loopThread = Thread.currentThread();
+
         while (true) {
-            var t = nextWakeUpMillis();
-            selector.select(t);
+            selector.select(selectTimeoutMillis());
+            // the commands run in this iteration see the time the loop woke up at
+            this.executor.getClock().update();
 
-            checkClientTimeouts();
+            if (this.acceptor) {
+                checkClientTimeouts();
+                runServerCron();
+            }
+            registerAdoptedClients();
 
             Set<SelectionKey> selectedKeys = this.selector.selectedKeys();
             Iterator<SelectionKey> keysIterator = selectedKeys.iterator();
@@ -93,63 +214,164 @@ class EventLoop implements AsyncCommandObserver {
 
                 if (key.isAcceptable()) {
                     handleAccept(key);
-                } else if (key.isReadable()) {
-                    handleRead(key);
-                } else if (key.isWritable()) {
-                    handleWrite(key);
+                    continue;
+                }
+
+                try {
+                    if (key.isReadable()) {
+                        handleRead(key);
+                    }
+
+                    if (key.isValid() && key.isWritable()) {
+                        handleWrite(key);
+                    }
+                } catch (IOException e) {
+                    log.error("I/O error on client connection, closing it: {}", e.getMessage());
+                    closeClient(key);
                 }
             }
+
+            drainForeignResponses();
+            flushPendingClients();
+            closeRequestedClients();
+            runCron();
+        }
+    }
+
+    /**
+     * The loop never sleeps longer than the cron interval, the acceptor no longer than
+     * the active expiry interval, and it wakes up earlier when a blocked client is due to time out.
+     */
+    private long selectTimeoutMillis() {
+        var maxTimeout = this.acceptor ? ActiveExpiry.CYCLE_INTERVAL_MILLIS : CRON_INTERVAL_MILLIS;
+        var timeout = this.acceptor ? nextWakeUpMillis() : -1L;
+        if (timeout < 0 || timeout > maxTimeout) {
+            return maxTimeout;
+        }
+        // select(0) would block indefinitely, a due client is released right after waking up
+        return Math.max(timeout, 1L);
+    }
+
+    private void runCron() {
+        var now = System.currentTimeMillis();
+        if (now - this.lastCronMillis < CRON_INTERVAL_MILLIS) {
+            return;
+        }
+        this.lastCronMillis = now;
+
+        // copied, closing a client while iterating would modify the key set
+        for (var key : List.copyOf(this.selector.keys())) {
+            if (!key.isValid() || !(key.attachment() instanceof ClientContext client)) {
+                continue;
+            }
+
+            if (this.limits.isIdleTimedOut(client.getInfo(), now)) {
+                log.info("Closing idle client {}", client.getChannel());
+                closeClient(key);
+            } else if (this.limits.output().isExceeded(client, now)) {
+                // a client over its soft limit may get no more output, its period is checked here as well
+                log.warn("Client {} stayed over its output buffer soft limit with {} bytes pending, closing it",
+                        client.getChannel(), client.getOutputBytes());
+                closeClient(key);
+            } else if (now - client.getLastInteractionMillis() > IDLE_BUFFER_MILLIS) {
+                client.shrinkReadBuffer(this.bufferPool);
+            }
         }
     }
 
     public void handleRead(SelectionKey key) throws IOException {
-        SocketChannel clientSocket = (SocketChannel) key.channel();
-        clientSocket.configureBlocking(false);
+        var client = (ClientContext) key.attachment();
+        var clientSocket = client.getChannel();
+        var readBuffer = client.getReadBuffer();
 
-        ByteBuffer attachedBuffer = (ByteBuffer) key.attachment();
-        int readBytes = clientSocket.read(attachedBuffer);
+        int readBytes = clientSocket.read(readBuffer);
 
         if (readBytes == -1) {
             log.info("Client disconnected: {}", clientSocket.getRemoteAddress());
-            clientSocket.close();
-            key.cancel();
+            closeClient(key);
             return;
         }
 
         if (readBytes > 0) {
-            attachedBuffer.flip();
+            client.onRead(readBytes, this.executor.getClock().millis());
+            readBuffer.flip();
+
+            // a single read may hold several pipelined commands, execute all of them in order.
+            // an incomplete command stays in the buffer until the rest of it arrives
+            ProtocolException protocolError = null;
+            try {
+                List<ByteString> command;
+                while ((command = client.getDecoder().decode(readBuffer)) != null) {
+                    this.decodedCommands.add(command);
+                }
+            } catch (ProtocolException e) {
+                protocolError = e;
+            }
 
-            var parsedCommand = parser.parse(attachedBuffer);
+            executeDecodedCommands(client);
 
-            if (parsedCommand instanceof List<?> commandItems) {
-                if(commandItems.getFirst() instanceof String) {
-                    // TODO try to fix ugly cast
-                    executor.execute((List<String>) commandItems, clientSocket);
-                }
+            if (client.isCloseAsap()) {
+                closeClient(key);
+                return;
+            }
+
+            if (protocolError != null) {
+                log.error("Protocol error from {}: {}", clientSocket.getRemoteAddress(), protocolError.getMessage());
+                rejectClient(key, client, protocolError.getMessage());
+                return;
             }
+
+            readBuffer.compact();
+            // checked before growing the buffer, a huge bulk length must not allocate a huge buffer
+            if (this.limits.isQueryBufferExceeded(readBuffer.position(), client.getDecoder().bytesNeeded())) {
+                log.warn("Closing client {} that reached the max query buffer length", clientSocket);
+                closeClient(key);
+                return;
+            }
+            client.ensureReadCapacity(this.bufferPool);
+            client.updateBufferStats();
         }
     }
 
-    private void checkClientTimeouts() {
-        var waitingClients = this.executor.getWaitingClients();
-        if (!waitingClients.isEmpty()) {
-
-            waitingClients.forEach( (waitingForKey, blockedClients) -> {
-                blockedClients.forEach( blockedClient -> {
-                    var t = blockedClient.getTimeout();
-                    var client = blockedClient.getChannel();
-                    var method = blockedClient.getMethod();
-
-                    if (t != null && t.isBefore(Instant.now())) {
-                        this.executor.unblockClient(waitingForKey, Command.NO_COMMAND, method);
-                        onResponseReady(client, ByteBuffer.wrap(NULL_LIST.getBytes()));
-                    }
-                });
-            });
+    private void executeDecodedCommands(ClientContext client) {
+        if (this.decodedCommands.isEmpty()) {
+            return;
+        }
+
+        this.executionLock.lock();
+        try {
+            for (var command : this.decodedCommands) {
+                executor.execute(command, client.getInfo());
+            }
+        } finally {
+            this.executionLock.unlock();
+            this.decodedCommands.clear();
+        }
+    }
+
+    private void runServerCron() {
+        var now = System.currentTimeMillis();
+        if (now - this.lastServerCronMillis < ActiveExpiry.CYCLE_INTERVAL_MILLIS) {
+            return;
+        }
+        this.lastServerCronMillis = now;
 
+        this.executionLock.lock();
+        try {
+            this.executor.serverCron();
+        } finally {
+            this.executionLock.unlock();
         }
     }
 
+    private void checkClientTimeouts() {
+        this.executionLock.lock();
+        try {
+            this.executor.releaseTimedOutClients(System.currentTimeMillis());
+        } finally {
+            this.executionLock.unlock();
+        }
+    }
 
     private void handleAccept(SelectionKey key) throws IOException {
         var serverSocket = (ServerSocketChannel) key.channel();
@@ -157,31 +379,207 @@ class EventLoop implements AsyncCommandObserver {
 
         if (clientSocket != null) {
             clientSocket.configureBlocking(false);
-            ByteBuffer buffer = ByteBuffer.allocate(1024);
-            clientSocket.register(this.selector, SelectionKey.OP_READ, buffer);
             log.info("Accepted new connection from client at {}", clientSocket.getRemoteAddress());
+
+            var reactor = this.reactors.get(this.nextReactor);
+            this.nextReactor = (this.nextReactor + 1) % this.reactors.size();
+
+            if (reactor == this) {
+                registerClient(clientSocket);
+            } else {
+                reactor.adopt(clientSocket);
+            }
+        }
+
+    }
+
+    private void registerAdoptedClients() {
+        SocketChannel clientSocket;
+        while ((clientSocket = this.adoptedClients.poll()) != null) {
+            try {
+                registerClient(clientSocket);
+            } catch (IOException e) {
+                log.error("Could not register client connection: {}", e.getMessage());
+                closeQuietly(clientSocket);
+            }
         }
+    }
 
+    private void registerClient(SocketChannel clientSocket) throws IOException {
+        var info = this.clients.register(clientSocket, () -> requestClose(clientSocket));
+        var client = new ClientContext(clientSocket, this.bufferPool.acquire(BufferPool.MIN_CAPACITY), info);
+        client.updateBufferStats();
+        this.router.bind(clientSocket, this);
+        clientSocket.register(this.selector, SelectionKey.OP_READ, client);
     }
 
     private void handleWrite(SelectionKey key) throws IOException {
-        SocketChannel clientSocket = (SocketChannel) key.channel();
-        ByteBuffer writeBuffer = (ByteBuffer) key.attachment();
+        flushClient(key, (ClientContext) key.attachment());
+    }
 
-        if (writeBuffer == null || !writeBuffer.hasRemaining()) {
-            log.warn("Nothing to write...");
-            key.interestOps(SelectionKey.OP_READ);
-            key.attach(ByteBuffer.allocate(1024));
+    private void queueResponse(SocketChannel channel, ByteBuffer response) {
+        var client = responseTarget(channel);
+        if (client != null) {
+            client.enqueue(response);
+            scheduleFlush(client);
+        }
+    }
+
+    private void queueResponse(SocketChannel channel, List<ByteBuffer> response) {
+        var client = responseTarget(channel);
+        if (client != null) {
+            response.forEach(client::enqueue);
+            scheduleFlush(client);
+        }
+    }
+
+    private void queueResponse(SocketChannel channel, ChunkedReply response) {
+        var client = responseTarget(channel);
+        if (client != null) {
+            client.enqueue(response);
+            scheduleFlush(client);
+        }
+    }
+
+    /**
+     * @return the client to queue a response for, or null if the response has to be dropped
+     */
+    private ClientContext responseTarget(SocketChannel channel) {
+        var key = channel.keyFor(this.selector);
+        if (key == null || !key.isValid()) {
+            log.error("Could not register response, client is no longer connected");
+            return null;
+        }
+
+        var client = (ClientContext) key.attachment();
+        return client.isCloseAsap() || client.isCloseAfterReply() ? null : client;
+    }
+
+    private void scheduleFlush(ClientContext client) {
+        if (this.limits.output().isExceeded(client, System.currentTimeMillis())) {
+            log.warn("Client {} exceeded its output buffer limit with {} bytes pending, closing it",
+                    client.getChannel(), client.getOutputBytes());
+            client.setCloseAsap(true);
+        }
+
+        if (!client.isFlushScheduled()) {
+            client.setFlushScheduled(true);
+            this.pendingFlush.addLast(client);
+        }
+    }
+
+    private void drainForeignResponses() {
+        PendingResponse pending;
+        while ((pending = this.foreignResponses.poll()) != null) {
+            queueResponse(pending.channel(), pending.response());
+        }
+    }
+
+    /**
+     * Writes the replies queued during this iteration, one gathering write per client.
+     * Clients whose output does not fit in the socket buffer wait for OP_WRITE.
+     */
+    private void flushPendingClients() {
+        ClientContext client;
+        while ((client = this.pendingFlush.pollFirst()) != null) {
+            client.setFlushScheduled(false);
+            var key = client.getChannel().keyFor(this.selector);
+            if (key == null || !key.isValid()) {
+                continue;
+            }
+
+            if (client.isCloseAsap()) {
+                closeClient(key);
+                continue;
+            }
+
+            try {
+                flushClient(key, client);
+            } catch (IOException e) {
+                log.error("Could not write to client, closing it: {}", e.getMessage());
+                closeClient(key);
+            }
+        }
+    }
+
+    private void flushClient(SelectionKey key, ClientContext client) throws IOException {
+        var bytesWritten = client.flush();
+        log.debug("Wrote {} bytes to {}", bytesWritten, client.getChannel().getRemoteAddress());
+        client.updateBufferStats();
+
+        if (client.isCloseAfterReply() && !client.hasPendingOutput()) {
+            closeClient(key);
             return;
         }
+        updateInterestOps(key, client);
+    }
+
+    /**
+     * Asks the loop to close one of its connections. Safe to call from any thread.
+     * @param clientSocket the connection to close
+     */
+    private void requestClose(SocketChannel clientSocket) {
+        this.closeRequests.add(clientSocket);
+        this.selector.wakeup();
+    }
+
+    private void closeRequestedClients() {
+        SocketChannel clientSocket;
+        while ((clientSocket = this.closeRequests.poll()) != null) {
+            var key = clientSocket.keyFor(this.selector);
+            if (key != null && key.isValid()) {
+                log.info("Closing client {} on request", clientSocket);
+                closeClient(key);
+            }
+        }
+    }
+
+    /**
+     * Waits for OP_WRITE while the socket send buffer is full,
+     * and stops reading from clients that have too much output backlogged until it drains.
+     */
+    private void updateInterestOps(SelectionKey key, ClientContext client) {
+        var ops = 0;
+        if (!this.limits.isReadPaused(client)) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (client.hasPendingOutput()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
 
-        int bytesWritten = clientSocket.write(writeBuffer);
-        log.debug("Wrote {} bytes to {} (remaining: {})", bytesWritten, clientSocket.getRemoteAddress(), writeBuffer.remaining());
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
 
-        if (!writeBuffer.hasRemaining()) {
-            log.info("Finished sending response to {}", clientSocket.getRemoteAddress());
-            key.interestOps(SelectionKey.OP_READ);
-            key.attach(ByteBuffer.allocate(1024));
+    /**
+     * Queues a protocol error after the replies of the commands that preceded the malformed one,
+     * and drops the connection once all of them are written, since there is no way to tell
+     * where the next command starts. Nothing more is read from the client.
+     */
+    private void rejectClient(SelectionKey key, ClientContext client, String reason) {
+        client.enqueue(encodeSimpleError("ERR Protocol error: " + reason));
+        scheduleFlush(client);
+        client.setCloseAfterReply(true);
+        updateInterestOps(key, client);
+    }
+
+    private void closeClient(SelectionKey key) {
+        var clientSocket = (SocketChannel) key.channel();
+        this.router.unbind(clientSocket);
+        if (key.attachment() instanceof ClientContext client) {
+            this.clients.unregister(client.getInfo());
+            client.releaseBuffers(this.bufferPool);
+        }
+        key.cancel();
+        closeQuietly(clientSocket);
+    }
+
+    private static void closeQuietly(SocketChannel clientSocket) {
+        try {
+            clientSocket.close();
+        } catch (IOException e) {
+            log.debug("Error while closing client connection: {}", e.getMessage());
         }
     }
 
@@ -190,19 +588,15 @@ class EventLoop implements AsyncCommandObserver {
      * and there are clients waiting in the list, they will never be released,
      * even after their timeouts expire, because the server will be idling.
      * This forces the selector to wake up when a client is due to be released.
-     * @return a value in milliseconds
+     * @return a value in milliseconds, or -1 if no client is waiting with a timeout
      */
     private long nextWakeUpMillis() {
-        var minTimeout = this.executor.getWaitingClients().values()
-                .stream()
-                .flatMap(List::stream)
-                .map(BlockedClient::getTimeout)
-                .filter(Objects::nonNull)
-                .mapToLong(t -> t.toEpochMilli() - Instant.now().toEpochMilli())
-                .min()
-                .orElse(0L);
-
-        return Math.max(minTimeout, 0L);
+        this.executionLock.lock();
+        try {
+            return this.executor.millisUntilNextTimeout(System.currentTimeMillis());
+        } finally {
+            this.executionLock.unlock();
+        }
     }
 
 }
@@ -0,0 +1,111 @@
+package server;
+
+import java.util.Locale;
+
+/**
+ * Output buffer limits of the clients, modelled on redis' client-output-buffer-limit:
+ * a client is disconnected as soon as its pending output exceeds the hard limit,
+ * or when it stays above the soft limit for longer than the soft period.
+ * A limit of 0 disables the check.
+ * Only the normal class is accepted, the server has neither replica nor pub/sub connections
+ * the other redis classes would apply to.
+ */
+public class OutputBufferLimits {
+    public static final String DEFAULT_LIMITS = "normal 0 0 0";
+
+    private final long hardBytes;
+    private final long softBytes;
+    private final long softMillis;
+
+    private OutputBufferLimits(long hardBytes, long softBytes, long softMillis) {
+        this.hardBytes = hardBytes;
+        this.softBytes = softBytes;
+        this.softMillis = softMillis;
+    }
+
+    /**
+     * Parses the limits, a "class hard soft seconds" group.
+     * Sizes accept the b/k/kb/m/mb/g/gb units.
+     * @param config the limits, e.g. "normal 64mb 16mb 60"
+     * @return the parsed limits
+     * @throws IllegalArgumentException if the limits are malformed or name another class than normal
+     */
+    public static OutputBufferLimits parse(String config) {
+        var parts = config.trim().split("\\s+");
+
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Wrong number of arguments in client-output-buffer-limit: " + config);
+        }
+
+        var clientClass = parts[0].toLowerCase(Locale.ROOT);
+        if (clientClass.equals("replica") || clientClass.equals("slave") || clientClass.equals("pubsub")) {
+            throw new IllegalArgumentException(
+                    "Unsupported client class " + parts[0] + ", only normal clients connect to this server");
+        }
+        if (!clientClass.equals("normal")) {
+            throw new IllegalArgumentException("Invalid client class " + parts[0]);
+        }
+
+        return new OutputBufferLimits(
+                parseBytes(parts[1]),
+                parseBytes(parts[2]),
+                Long.parseLong(parts[3]) * 1000
+        );
+    }
+
+    /**
+     * Checks the pending output of a client against the limits.
+     * Keeps track of when the client went over its soft limit.
+     * @param client the client that just got more output queued, or checked periodically
+     * @param nowMillis the current time in epoch millis
+     * @return true if the client has to be disconnected
+     */
+    boolean isExceeded(ClientContext client, long nowMillis) {
+        var pending = client.getOutputBytes();
+
+        if (this.hardBytes > 0 && pending >= this.hardBytes) {
+            return true;
+        }
+
+        if (this.softBytes > 0 && pending >= this.softBytes) {
+            if (client.getSoftLimitReachedMillis() == 0) {
+                client.setSoftLimitReachedMillis(nowMillis);
+                return false;
+            }
+            return nowMillis - client.getSoftLimitReachedMillis() > this.softMillis;
+        }
+
+        client.setSoftLimitReachedMillis(0);
+        return false;
+    }
+
+    /**
+     * Parses a size the way redis.conf does: k/m/g are powers of 1000, kb/mb/gb powers of 1024.
+     * @param size the size, e.g. "64mb"
+     * @return the size in bytes
+     */
+    static long parseBytes(String size) {
+        var value = size.toLowerCase(Locale.ROOT);
+        var unitStart = value.length();
+        while (unitStart > 0 && Character.isLetter(value.charAt(unitStart - 1))) {
+            unitStart--;
+        }
+
+        long multiplier = switch (value.substring(unitStart)) {
+            case "", "b" -> 1L;
+            case "k" -> 1000L;
+            case "kb" -> 1024L;
+            case "m" -> 1000L * 1000;
+            case "mb" -> 1024L * 1024;
+            case "g" -> 1000L * 1000 * 1000;
+            case "gb" -> 1024L * 1024 * 1024;
+            default -> throw new IllegalArgumentException("Invalid size " + size);
+        };
+
+        try {
+            return Long.parseLong(value.substring(0, unitStart)) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size " + size, e);
+        }
+    }
+}
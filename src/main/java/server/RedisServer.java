@@ -1,12 +1,18 @@
 package server;
 
-import parser.Parser;
+import commands.CommandHandler;
+import lombok.extern.slf4j.Slf4j;
 import store.KeyValueStore;
+import store.ServerClock;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
-import static server.Configuration.TCP_PORT;
+import static server.Configuration.*;
 
+@Slf4j
 public class RedisServer {
 
     private final Configuration configuration;
@@ -15,15 +21,69 @@ public class RedisServer {
         this.configuration = configuration;
     }
 
+    /**
+     * Starts the server with one event loop per I/O thread, or with one virtual thread per client
+     * when the virtual-threads server mode is configured.
+     * The first loop accepts connections and distributes them round-robin between all the loops,
+     * itself included. Every loop owns its selector and its clients' buffers and decoders,
+     * while command execution is serialized through a single lock around the shared store.
+     * @throws IOException if the loops can not be started
+     */
     public void run() throws IOException {
-        KeyValueStore kvStore = new KeyValueStore();
-        Parser parser = new Parser();
+        var clock = new ServerClock("yes".equalsIgnoreCase(configuration.getSettings().get(PRECISE_CLOCK)));
+        KeyValueStore kvStore = new KeyValueStore(clock);
+        var router = new ResponseRouter();
+        var clients = new ClientRegistry(configuration);
+        var executor = new CommandHandler(kvStore, router, clients, configuration);
+        var executionLock = new ReentrantLock();
+        var port = Integer.parseInt(configuration.getServer().get(TCP_PORT));
+        var limits = ClientLimits.from(configuration);
 
-        EventLoop eventLoop = new EventLoop(parser, kvStore, configuration);
+        if (VIRTUAL_THREADS_MODE.equals(configuration.getServer().get(SERVER_MODE))) {
+            var unixSocket = configuration.getServer().get(UNIX_SOCKET);
+            new VirtualThreadServer(executor, router, clients, executionLock, limits).run(
+                    "0.0.0.0",
+                    port,
+                    unixSocket != null ? Path.of(unixSocket) : null,
+                    configuration.getServer().get(UNIX_SOCKET_PERM)
+            );
+            return;
+        }
 
-        var port = configuration.getServer().get(TCP_PORT);
-        eventLoop.configure("0.0.0.0", Integer.parseInt(port));
-        eventLoop.run();
+        var ioThreads = Math.max(1, Integer.parseInt(configuration.getServer().get(IO_THREADS)));
+        var eventLoops = new ArrayList<EventLoop>(ioThreads);
+        for (int i = 0; i < ioThreads; i++) {
+            var eventLoop = new EventLoop(executor, router, clients, executionLock, limits);
+            eventLoop.open();
+            eventLoops.add(eventLoop);
+        }
+
+        var acceptor = eventLoops.getFirst();
+        acceptor.setReactors(eventLoops);
+
+        for (int i = 1; i < ioThreads; i++) {
+            var eventLoop = eventLoops.get(i);
+            Thread.ofPlatform()
+                    .name("io-thread-" + i)
+                    .start(() -> runLoop(eventLoop));
+        }
+        log.info("Started {} I/O threads", ioThreads);
+
+        acceptor.configure("0.0.0.0", port);
+
+        var unixSocket = configuration.getServer().get(UNIX_SOCKET);
+        if (unixSocket != null) {
+            acceptor.configureUnixSocket(Path.of(unixSocket), configuration.getServer().get(UNIX_SOCKET_PERM));
+        }
+        acceptor.run();
+    }
+
+    private static void runLoop(EventLoop eventLoop) {
+        try {
+            eventLoop.run();
+        } catch (IOException e) {
+            log.error("Event loop stopped: {}", e.getMessage(), e);
+        }
     }
 
 }
@@ -41,7 +41,7 @@ public class ReplicationConnection {
             dataOutputStream.write(
                     ProtocolUtils.encode(
                             List.of("PING")
-                    ).getBytes()
+                    ).array()
             );
         } catch (IOException e) {
             log.error("Could not ping master. Handshake failed...");
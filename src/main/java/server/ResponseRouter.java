@@ -0,0 +1,61 @@
+package server;
+
+import commands.ChunkedReply;
+import commands.async.AsyncCommandObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes command responses to the event loop (or virtual thread) that owns the client connection.
+ * Commands can produce responses for clients served by other loops
+ * (e.g. RPUSH releasing a client blocked in BLPOP), so the command handler
+ * cannot talk to a single loop directly.
+ */
+@Slf4j
+class ResponseRouter implements AsyncCommandObserver {
+
+    private final Map<SocketChannel, AsyncCommandObserver> owners = new ConcurrentHashMap<>();
+
+    public void bind(SocketChannel channel, AsyncCommandObserver owner) {
+        this.owners.put(channel, owner);
+    }
+
+    public void unbind(SocketChannel channel) {
+        this.owners.remove(channel);
+    }
+
+    @Override
+    public void onResponseReady(SocketChannel channel, ByteBuffer response) {
+        var owner = this.owners.get(channel);
+        if (owner == null) {
+            log.debug("Dropping response, client is no longer connected");
+            return;
+        }
+        owner.onResponseReady(channel, response);
+    }
+
+    @Override
+    public void onResponseReady(SocketChannel channel, List<ByteBuffer> response) {
+        var owner = this.owners.get(channel);
+        if (owner == null) {
+            log.debug("Dropping response, client is no longer connected");
+            return;
+        }
+        owner.onResponseReady(channel, response);
+    }
+
+    @Override
+    public void onResponseReady(SocketChannel channel, ChunkedReply response) {
+        var owner = this.owners.get(channel);
+        if (owner == null) {
+            log.debug("Dropping response, client is no longer connected");
+            return;
+        }
+        owner.onResponseReady(channel, response);
+    }
+}
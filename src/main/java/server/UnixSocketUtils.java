@@ -0,0 +1,69 @@
+package server;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Set;
+
+public class UnixSocketUtils {
+
+    // PosixFilePermission constants ordered from the most significant octal bit (owner read) down
+    private static final PosixFilePermission[] PERMISSION_BITS = {
+            PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE,
+            PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_EXECUTE,
+            PosixFilePermission.OTHERS_READ, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_EXECUTE
+    };
+
+    /**
+     * Binds a listening unix domain socket at the given path.
+     * A socket file left behind by a previous run is removed first, as binding would fail otherwise.
+     * The file is removed again when the JVM exits.
+     * @param path the socket file path
+     * @param permissions octal permissions of the socket file (e.g. "700"), or null to keep the umask default
+     * @return the bound server channel, in blocking mode
+     * @throws IOException if the socket can not be bound or its permissions can not be set
+     */
+    public static ServerSocketChannel bind(Path path, String permissions) throws IOException {
+        Files.deleteIfExists(path);
+
+        var serverSocketChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverSocketChannel.bind(UnixDomainSocketAddress.of(path));
+        path.toFile().deleteOnExit();
+
+        if (permissions != null) {
+            Files.setPosixFilePermissions(path, parsePermissions(permissions));
+        }
+        return serverSocketChannel;
+    }
+
+    /**
+     * Converts octal permissions, as used by chmod, into a set of POSIX permissions
+     * @param octal the permissions, e.g. "700" or "0770"
+     * @return the matching permission set
+     */
+    public static Set<PosixFilePermission> parsePermissions(String octal) {
+        int mode;
+        try {
+            mode = Integer.parseInt(octal, 8);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid unix socket permissions " + octal, e);
+        }
+
+        if (mode < 0 || mode > 0777) {
+            throw new IllegalArgumentException("Invalid unix socket permissions " + octal);
+        }
+
+        var permissions = EnumSet.noneOf(PosixFilePermission.class);
+        for (int bit = 0; bit < PERMISSION_BITS.length; bit++) {
+            if ((mode & (1 << (PERMISSION_BITS.length - 1 - bit))) != 0) {
+                permissions.add(PERMISSION_BITS[bit]);
+            }
+        }
+        return permissions;
+    }
+}
@@ -0,0 +1,188 @@
+package server;
+
+import commands.ChunkedReply;
+import commands.CommandHandler;
+import commands.async.AsyncCommandObserver;
+import lombok.extern.slf4j.Slf4j;
+import parser.exceptions.ProtocolException;
+import store.types.ByteString;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static commands.ProtocolUtils.encodeSimpleError;
+
+/**
+ * A client connection served with blocking I/O on its own virtual thread.
+ * Every command is answered before the next one is executed. When a command blocks
+ * (BLPOP, XREAD BLOCK) no reply is produced right away, and the virtual thread parks
+ * on its reply queue until another client serves it or its timeout is due.
+ */
+@Slf4j
+class VirtualThreadConnection implements Runnable, AsyncCommandObserver {
+
+    private final ClientContext client;
+    private final CommandHandler executor;
+    private final ResponseRouter router;
+    private final ClientRegistry clients;
+    private final Lock executionLock;
+    private final ClientLimits limits;
+
+    // replies for this client, from its own commands or from the clients unblocking it
+    private final BlockingQueue<ChunkedReply> replies = new LinkedBlockingQueue<>();
+
+    public VirtualThreadConnection(SocketChannel channel, CommandHandler executor,
+                                   ResponseRouter router, ClientRegistry clients, Lock executionLock,
+                                   ClientLimits limits) {
+        // closing a blocking channel from another thread makes the pending read fail, ending the connection
+        var info = clients.register(channel, () -> closeQuietly(channel));
+        // a heap read buffer, so that decoded arguments are slices of it instead of copies.
+        // it is allocated rather than pooled, a pool per connection would never recycle anything
+        this.client = new ClientContext(channel, ByteBuffer.allocate(BufferPool.MIN_CAPACITY), info);
+        this.executor = executor;
+        this.router = router;
+        this.clients = clients;
+        this.executionLock = executionLock;
+        this.limits = limits;
+    }
+
+    @Override
+    public void onResponseReady(SocketChannel channel, ByteBuffer response) {
+        this.replies.add(ChunkedReply.of(response));
+    }
+
+    @Override
+    public void onResponseReady(SocketChannel channel, List<ByteBuffer> response) {
+        this.replies.add(ChunkedReply.of(response));
+    }
+
+    @Override
+    public void onResponseReady(SocketChannel channel, ChunkedReply response) {
+        this.replies.add(response);
+    }
+
+    @Override
+    public void run() {
+        var channel = this.client.getChannel();
+        this.router.bind(channel, this);
+
+        try {
+            while (serveNextRead()) {
+                // keep serving until the client disconnects
+            }
+            log.info("Client disconnected: {}", channel.getRemoteAddress());
+        } catch (IOException e) {
+            log.error("I/O error on client connection, closing it: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.router.unbind(channel);
+            this.clients.unregister(this.client.getInfo());
+            closeQuietly(channel);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Error while closing client connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads from the socket, executes every complete command and writes their replies
+     * with a single gathering write.
+     * @return false once the client has disconnected or has to be dropped
+     */
+    private boolean serveNextRead() throws IOException, InterruptedException {
+        var readBuffer = this.client.getReadBuffer();
+        var readBytes = this.client.getChannel().read(readBuffer);
+        if (readBytes == -1) {
+            return false;
+        }
+        // every read is one iteration of this connection's loop
+        this.client.onRead(readBytes, this.executor.getClock().update());
+        readBuffer.flip();
+
+        try {
+            List<ByteString> command;
+            while ((command = this.client.getDecoder().decode(readBuffer)) != null) {
+                execute(command);
+                this.client.enqueue(awaitReply());
+            }
+        } catch (ProtocolException e) {
+            log.error("Protocol error from {}: {}", this.client.getChannel().getRemoteAddress(), e.getMessage());
+            this.client.enqueue(encodeSimpleError("ERR Protocol error: " + e.getMessage()));
+            flush();
+            return false;
+        }
+
+        readBuffer.compact();
+        flush();
+        if (this.limits.isQueryBufferExceeded(readBuffer.position(), this.client.getDecoder().bytesNeeded())) {
+            log.warn("Closing client {} that reached the max query buffer length", this.client.getChannel());
+            return false;
+        }
+        this.client.ensureReadCapacity();
+        this.client.updateBufferStats();
+        return true;
+    }
+
+    private void execute(List<ByteString> command) {
+        this.executionLock.lock();
+        try {
+            this.executor.execute(command, this.client.getInfo());
+        } finally {
+            this.executionLock.unlock();
+        }
+    }
+
+    /**
+     * Parks the virtual thread until the reply of the last command is available.
+     * While parked, the thread also releases the blocked clients whose timeouts are due,
+     * since there is no event loop to do it in this mode.
+     */
+    private ChunkedReply awaitReply() throws InterruptedException {
+        var reply = this.replies.poll();
+        while (reply == null) {
+            var timeout = millisUntilNextTimeout();
+            reply = timeout < 0 ? this.replies.take() : this.replies.poll(timeout, TimeUnit.MILLISECONDS);
+
+            if (reply == null) {
+                releaseTimedOutClients();
+            }
+        }
+        return reply;
+    }
+
+    private long millisUntilNextTimeout() {
+        this.executionLock.lock();
+        try {
+            return this.executor.millisUntilNextTimeout(System.currentTimeMillis());
+        } finally {
+            this.executionLock.unlock();
+        }
+    }
+
+    private void releaseTimedOutClients() {
+        this.executionLock.lock();
+        try {
+            this.executor.releaseTimedOutClients(System.currentTimeMillis());
+        } finally {
+            this.executionLock.unlock();
+        }
+    }
+
+    private void flush() throws IOException {
+        while (this.client.hasPendingOutput()) {
+            this.client.flush();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package server;
+
+import commands.CommandHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import store.ActiveExpiry;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Alternative to the selector based event loops: every client connection
+ * is served with blocking I/O on its own virtual thread.
+ * Commands still run one at a time against the shared store, through the same execution lock.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class VirtualThreadServer {
+
+    private final CommandHandler executor;
+    private final ResponseRouter router;
+    private final ClientRegistry clients;
+    private final Lock executionLock;
+    private final ClientLimits limits;
+
+    private final AtomicLong connections = new AtomicLong();
+
+    private static final long IDLE_CHECK_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Accepts connections forever, starting a virtual thread for each of them.
+     * @param host the address to bind to
+     * @param port the port to bind to
+     * @param unixSocket path of an additional unix domain socket listener, or null
+     * @param unixSocketPermissions octal permissions of the unix socket file, or null
+     * @throws IOException if the server socket can not be opened
+     */
+    public void run(String host, int port, Path unixSocket, String unixSocketPermissions) throws IOException {
+        Thread.ofVirtual()
+                .name("server-cron")
+                .start(this::runServerCron);
+
+        if (this.limits.idleTimeoutMillis() > 0) {
+            Thread.ofVirtual()
+                    .name("idle-client-reaper")
+                    .start(this::closeIdleClients);
+        }
+
+        if (unixSocket != null) {
+            var unixSocketChannel = UnixSocketUtils.bind(unixSocket, unixSocketPermissions);
+            log.info("Server listening on unix socket {} ...", unixSocket);
+            Thread.ofVirtual()
+                    .name("unix-socket-acceptor")
+                    .start(() -> acceptQuietly(unixSocketChannel));
+        }
+
+        try (var serverSocketChannel = ServerSocketChannel.open()) {
+            serverSocketChannel.bind(new InetSocketAddress(host, port));
+            log.info("Server listening on port {} with a virtual thread per client ...", port);
+            accept(serverSocketChannel);
+        }
+    }
+
+    private void accept(ServerSocketChannel serverSocketChannel) throws IOException {
+        while (true) {
+            var clientSocket = serverSocketChannel.accept();
+            log.info("Accepted new connection from client at {}", clientSocket.getRemoteAddress());
+
+            var connection = new VirtualThreadConnection(clientSocket, executor, router, clients, executionLock, limits);
+            Thread.ofVirtual()
+                    .name("client-" + connections.incrementAndGet())
+                    .start(connection);
+        }
+    }
+
+    /**
+     * Without an event loop there is no cron, idle connections are looked up once per second
+     * and closed by their own virtual threads.
+     */
+    private void closeIdleClients() {
+        while (true) {
+            try {
+                Thread.sleep(IDLE_CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            var now = System.currentTimeMillis();
+            for (var client : this.clients.getClients()) {
+                if (this.limits.isIdleTimedOut(client, now)) {
+                    log.info("Closing idle client {}", client.getAddress());
+                    client.kill();
+                }
+            }
+        }
+    }
+
+    /**
+     * Without an event loop, the periodic housekeeping of the store runs on its own virtual thread.
+     */
+    private void runServerCron() {
+        while (true) {
+            try {
+                Thread.sleep(ActiveExpiry.CYCLE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            this.executionLock.lock();
+            try {
+                this.executor.serverCron();
+            } finally {
+                this.executionLock.unlock();
+            }
+        }
+    }
+
+    private void acceptQuietly(ServerSocketChannel serverSocketChannel) {
+        try (serverSocketChannel) {
+            accept(serverSocketChannel);
+        } catch (IOException e) {
+            log.error("Stopped accepting connections: {}", e.getMessage(), e);
+        }
+    }
+}
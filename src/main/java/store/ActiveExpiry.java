@@ -0,0 +1,91 @@
+package store;
+
+import lombok.Getter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Removes expired keys that are never accessed again, following the redis active expiry cycle.
+ * Every {@link #CYCLE_INTERVAL_MILLIS} a cycle samples random keys among those with an expiry,
+ * removing the expired ones, and keeps sampling as long as more than an acceptable share of
+ * the sampled keys turns out to be expired, within a time budget.
+ * Memory held by expired keys is thus reclaimed in the background, with a bounded latency cost.
+ * <p>
+ * The effort, from 1 to 10, trades CPU for memory: a higher effort samples more keys per loop,
+ * tolerates fewer expired keys left behind and gets a larger share of each interval.
+ * Cycles run under the execution lock, and refresh the server clock before sampling.
+ */
+public class ActiveExpiry {
+    public static final long CYCLE_INTERVAL_MILLIS = 100;
+    public static final int MIN_EFFORT = 1;
+    public static final int MAX_EFFORT = 10;
+
+    private static final int KEYS_PER_LOOP = 20;
+    private static final int ACCEPTABLE_STALE_PERCENT = 10;
+    private static final int CYCLE_TIME_PERCENT = 25;
+    // reading the clock on every loop would cost more than sampling a few keys
+    private static final int LOOPS_PER_TIME_CHECK = 16;
+
+    private final KeyValueStore kvStore;
+    private final int keysPerLoop;
+    private final int acceptableStalePercent;
+    private final long timeBudgetNanos;
+
+    /**
+     * Estimated percentage of the keys with an expiry that have expired but are still in the store,
+     * a moving average of the share of expired keys among the sampled ones.
+     */
+    @Getter
+    private double stalePercent;
+
+    /**
+     * @param effort from {@link #MIN_EFFORT} to {@link #MAX_EFFORT}, values outside are clamped
+     */
+    public ActiveExpiry(KeyValueStore kvStore, int effort) {
+        var extraEffort = Math.clamp(effort, MIN_EFFORT, MAX_EFFORT) - MIN_EFFORT;
+        this.kvStore = kvStore;
+        this.keysPerLoop = KEYS_PER_LOOP + KEYS_PER_LOOP / 4 * extraEffort;
+        this.acceptableStalePercent = ACCEPTABLE_STALE_PERCENT - extraEffort;
+        this.timeBudgetNanos = CYCLE_INTERVAL_MILLIS * 1_000_000 * (CYCLE_TIME_PERCENT + 2L * extraEffort) / 100;
+    }
+
+    /**
+     * @return the number of keys removed
+     */
+    public int runCycle() {
+        this.kvStore.getClock().update();
+        var deadline = System.nanoTime() + this.timeBudgetNanos;
+        var random = ThreadLocalRandom.current();
+        long sampled = 0;
+        var expired = 0;
+        var loops = 0;
+
+        while (true) {
+            var toSample = Math.min(this.keysPerLoop, this.kvStore.volatileKeyCount());
+            if (toSample == 0) {
+                break;
+            }
+
+            var expiredInLoop = 0;
+            for (int i = 0; i < toSample; i++) {
+                if (this.kvStore.expireIfDue(this.kvStore.randomVolatileKey(random))) {
+                    expiredInLoop++;
+                }
+            }
+            sampled += toSample;
+            expired += expiredInLoop;
+
+            if (expiredInLoop * 100 <= this.acceptableStalePercent * toSample) {
+                break;
+            }
+            if (++loops % LOOPS_PER_TIME_CHECK == 0 && System.nanoTime() > deadline) {
+                break;
+            }
+        }
+
+        if (sampled > 0) {
+            this.stalePercent = expired * 100.0 / sampled * 0.05 + this.stalePercent * 0.95;
+        }
+        return expired;
+    }
+}
@@ -1,71 +1,81 @@
 package store;
 
 import commands.exceptions.CommandExecutionException;
-import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import store.expiry.Expiry;
-import store.expiry.NoExpiry;
+import store.expiry.VolatileKeys;
+import store.types.ByteString;
 import store.types.DataType;
 import store.types.StreamObject;
 
-import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
 
 import static commands.Errors.NOT_AN_INTEGER;
 import static commands.Errors.WRONG_TYPE;
 
 @Slf4j
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class KeyValueStore {
 
-    private final Map<String, RedisObject> keyValueStore = new ConcurrentHashMap<>();
-
-    public RedisObject getRedisObject(String key) {
-        if (!containsKey(key)) {
-            return null;
-        }
-
-        var valueObject = this.keyValueStore.get(key);
-
-        if (valueObject.isExpired()) {
-            removeKey(key);
-            return null;
+    // keys and string values are owned copies, never slices of a client's read buffer
+    private final Map<ByteString, RedisObject> keyValueStore = new ConcurrentHashMap<>();
+    // the keys with an expiry, sampled by the active expiry cycle
+    private final VolatileKeys volatileKeys = new VolatileKeys();
+    // the time keys are checked against for expiry
+    @Getter
+    private final ServerClock clock;
+    // keys removed because they expired, whether they were found on access or by the active expiry cycle
+    @Getter
+    private long expiredKeys;
+    // estimated size of the keys and values, maintained on every write, see MemoryEstimator
+    @Getter
+    private long datasetBytes;
+
+    public RedisObject getRedisObject(ByteString key) {
+        var valueObject = lookup(key);
+        if (valueObject != null) {
+            valueObject.touch(this.clock.millis());
         }
-
-        return this.keyValueStore.get(key);
+        return valueObject;
     }
 
-    public void setValue(String key, Object value) {
-        setValue(key, value, new NoExpiry());
+    public void setValue(ByteString key, Object value) {
+        setValue(key, value, RedisObject.NO_EXPIRY);
     }
 
-    public void setValue(String key, Object value, Expiry expiry) {
-        var valueBuilder = RedisObject.builder()
-                .value(value)
-                .additionTime(Instant.now())
-                .expiryType(expiry);
-        switch (value) {
-            case String ignored -> {
-                valueBuilder.type(DataType.STRING);
-            }
-            case List<?> ignored -> {
-                valueBuilder.type(DataType.LIST);
-            }
-            case StreamObject ignored -> {
-                valueBuilder.type(DataType.STREAM);
-            }
-            default -> {}
+    /**
+     * @param expiresAtMillis the expiry deadline in epoch millis, or {@link RedisObject#NO_EXPIRY}
+     */
+    public void setValue(ByteString key, Object value, long expiresAtMillis) {
+        var now = this.clock.millis();
+        var redisObject = switch (value) {
+            case ByteString string -> new RedisObject(string.copy(), DataType.STRING, expiresAtMillis, now);
+            case List<?> ignored -> new RedisObject(value, DataType.LIST, expiresAtMillis, now);
+            case StreamObject ignored -> new RedisObject(value, DataType.STREAM, expiresAtMillis, now);
+            default -> throw new IllegalArgumentException("Unsupported value type " + value.getClass());
+        };
+        var ownedKey = key.copy();
+        var previous = this.keyValueStore.put(ownedKey, redisObject);
+        this.datasetBytes += previous == null
+                ? MemoryEstimator.keyBytes(ownedKey)
+                : -MemoryEstimator.valueBytes(previous, 0);
+        this.datasetBytes += MemoryEstimator.valueBytes(redisObject, 0);
+        if (redisObject.hasExpiry()) {
+            this.volatileKeys.add(ownedKey);
+        } else {
+            this.volatileKeys.remove(ownedKey);
         }
-        this.keyValueStore.put(key, valueBuilder.build());
     }
 
-    public int deleteKeys(List<String> keys) {
+    public int deleteKeys(List<ByteString> keys) {
         AtomicInteger removed = new AtomicInteger();
         keys.forEach( k -> {
             if (this.keyValueStore.get(k) != null) {
-                this.keyValueStore.remove(k);
+                removeKey(k);
                 removed.getAndIncrement();
             }
         });
@@ -80,9 +90,9 @@ public class KeyValueStore {
      * @param values values to add
      * @return the number of elements in the list
      */
-    public int append(String key, List<String> values) {
+    public int append(ByteString key, List<ByteString> values) {
         var valueType = this.keyValueStore.get(key);
-        List<String> list;
+        List<ByteString> list;
 
         if (valueType != null && !valueType.getType().equals(DataType.LIST)) {
             throw new CommandExecutionException(WRONG_TYPE);
@@ -90,18 +100,20 @@ public class KeyValueStore {
 
         if (valueType != null) {
             list = valueType.getValue();
-            list.addAll(values);
+            var copies = ByteString.copyAll(values);
+            list.addAll(copies);
+            copies.forEach(copy -> this.datasetBytes += MemoryEstimator.listElementBytes(copy));
         } else {
-            list = new ArrayList<>(values);
-            setValue(key, list, new NoExpiry());
+            list = ByteString.copyAll(values);
+            setValue(key, list);
         }
 
         return list.size();
     }
 
-    public int prepend(String key, List<String> values) {
+    public int prepend(ByteString key, List<ByteString> values) {
         var valueType = this.keyValueStore.get(key);
-        List<String> list;
+        List<ByteString> list;
 
         if (valueType != null && !valueType.getType().equals(DataType.LIST)) {
             throw new CommandExecutionException(WRONG_TYPE);
@@ -110,11 +122,13 @@ public class KeyValueStore {
         if (valueType != null) {
             list = valueType.getValue();
             for (var item: values) {
-                list.addFirst(item);
+                var copy = item.copy();
+                list.addFirst(copy);
+                this.datasetBytes += MemoryEstimator.listElementBytes(copy);
             }
         } else {
-            list = new ArrayList<>(values.reversed());
-            setValue(key, list, new NoExpiry());
+            list = ByteString.copyAll(values.reversed());
+            setValue(key, list);
         }
         return list.size();
     }
@@ -126,13 +140,13 @@ public class KeyValueStore {
      * @param stop stop index (inclusive)
      * @return a list of elements
      */
-    public List<String> getRange(String key, int start, int stop) {
+    public List<ByteString> getRange(ByteString key, int start, int stop) {
         if (!containsKey(key)) {
             return Collections.emptyList();
         }
 
         var valueType = this.keyValueStore.get(key);
-        List<String> list;
+        List<ByteString> list;
 
         if (valueType != null && !valueType.getType().equals(DataType.LIST)) {
             throw new CommandExecutionException(WRONG_TYPE);
@@ -158,19 +172,19 @@ public class KeyValueStore {
         return list.subList(start, stop+1);
     }
 
-    public String removeFirst(String key) {
+    public ByteString removeFirst(ByteString key) {
         var removedItem = removeItems(key, 1);
         return removedItem != null ? removedItem.getFirst() : null;
     }
 
-    public List<String> removeItems(String key, int n) {
+    public List<ByteString> removeItems(ByteString key, int n) {
         if (!containsKey(key)) {
             return null;
         }
 
         var valueType = this.keyValueStore.get(key);
-        List<String> list;
-        var removedItems = new ArrayList<String>();
+        List<ByteString> list;
+        var removedItems = new ArrayList<ByteString>();
 
         if (valueType != null && !valueType.getType().equals(DataType.LIST)) {
             throw new CommandExecutionException(WRONG_TYPE);
@@ -188,7 +202,9 @@ public class KeyValueStore {
             }
 
             for (int i = 0; i < n; i++) {
-                removedItems.add(list.removeFirst());
+                var removedItem = list.removeFirst();
+                removedItems.add(removedItem);
+                this.datasetBytes -= MemoryEstimator.listElementBytes(removedItem);
             }
         } else {
             //  TODO should i throw something?
@@ -199,12 +215,12 @@ public class KeyValueStore {
         return removedItems;
     }
 
-    public boolean containsKey(String key) {
+    public boolean containsKey(ByteString key) {
         return this.keyValueStore.containsKey(key);
     }
 
     // TODO ugly
-    public void addStreamValue(String key, String streamId, Map<String, String> item) {
+    public void addStreamValue(ByteString key, String streamId, Map<String, String> item) {
         if (!containsKey(key)) {
             var stream = new StreamObject();
             stream.addStreamEntry(streamId, item);
@@ -214,9 +230,10 @@ public class KeyValueStore {
 
         var stream = (StreamObject) this.keyValueStore.get(key).getValue();
         stream.addStreamEntry(streamId, item);
+        this.datasetBytes += MemoryEstimator.streamEntryBytes(streamId, item);
     }
 
-    public SortedMap<String, Map<String, String>> getStreamRange(String key, String start, String end) {
+    public SortedMap<String, Map<String, String>> getStreamRange(ByteString key, String start, String end) {
         if (!containsKey(key)) {
             return new TreeMap<>();
         }
@@ -252,8 +269,8 @@ public class KeyValueStore {
      * @param count ??
      * @return a mapping between a redis object key and its stream selection
      */
-    public Map<String, SortedMap<String, Map<String, String>>> selectStreams(List<String> keys, List<String> ids, int count) {
-        var selection = new HashMap<String, SortedMap<String, Map<String, String>>>();
+    public Map<ByteString, SortedMap<String, Map<String, String>>> selectStreams(List<ByteString> keys, List<String> ids, int count) {
+        var selection = new HashMap<ByteString, SortedMap<String, Map<String, String>>>();
         log.debug("selecting streams... with keys = {}", keys);
         for(int i = 0; i < keys.size(); i++) {
             var key = keys.get(i);
@@ -274,49 +291,115 @@ public class KeyValueStore {
         return selection;
     }
 
-    public long increment(String key) {
+    public long increment(ByteString key) {
         var redisObject = this.keyValueStore.get(key);
         if (redisObject != null && !redisObject.getType().equals(DataType.STRING)) {
             throw new CommandExecutionException(WRONG_TYPE);
         }
 
-        if (redisObject != null && isNumeric(redisObject.getValue())) {
-            var incremented = Long.parseLong(redisObject.getValue()) + 1;
+        if (redisObject != null) {
+            long current;
+            try {
+                current = redisObject.<ByteString>getValue().parseLong();
+            } catch (NumberFormatException e) {
+                throw new CommandExecutionException(NOT_AN_INTEGER);
+            }
 
-            if (incremented == Long.MAX_VALUE) {
+            if (current == Long.MAX_VALUE) {
                 throw new CommandExecutionException(NOT_AN_INTEGER);
             }
 
-            redisObject.setValue(String.valueOf(incremented));
-            this.keyValueStore.put(key, redisObject);
+            var incremented = current + 1;
+            var value = ByteString.of(incremented);
+            this.datasetBytes -= MemoryEstimator.valueBytes(redisObject, 0);
+            redisObject.setValue(value);
+            this.datasetBytes += MemoryEstimator.valueBytes(redisObject, 0);
             return incremented;
         }
 
-        if (redisObject == null) {
-            var incremented = "1";
-            var newObject = new RedisObject(incremented, DataType.STRING, Instant.now(), new NoExpiry());
-            this.keyValueStore.put(key, newObject);
-            return Long.parseLong(incremented);
-        }
+        setValue(key, ByteString.of(1));
+        return 1;
+    }
 
-        throw new CommandExecutionException(NOT_AN_INTEGER);
+    public int volatileKeyCount() {
+        return this.volatileKeys.size();
     }
 
-    private boolean isNumeric(String strNum) {
-        if (strNum == null) {
-            return false;
-        }
-        try {
-            Long.parseLong(strNum);
-        } catch (NumberFormatException nfe) {
+    /**
+     * @return one of the keys with an expiry, picked at random. There must be at least one
+     */
+    public ByteString randomVolatileKey(RandomGenerator random) {
+        return this.volatileKeys.random(random);
+    }
+
+    /**
+     * Removes the key if it has expired, used by the active expiry cycle on sampled keys.
+     * @return true if the key was removed
+     */
+    public boolean expireIfDue(ByteString key) {
+        var valueObject = this.keyValueStore.get(key);
+        if (valueObject == null || !valueObject.isExpired(this.clock.millis())) {
             return false;
         }
+        removeKey(key);
+        this.expiredKeys++;
         return true;
     }
 
+    /**
+     * @return the number of keys, including expired keys not removed yet
+     */
+    public int size() {
+        return this.keyValueStore.size();
+    }
+
+    /**
+     * Estimates the memory taken by a key and its value, without counting as an access to the key.
+     * @param samples the number of elements of an aggregate value to measure, 0 for all of them
+     * @return the size in bytes, or null if the key does not exist
+     */
+    public Long memoryUsage(ByteString key, int samples) {
+        var valueObject = lookup(key);
+        if (valueObject == null) {
+            return null;
+        }
+        return MemoryEstimator.keyBytes(key) + MemoryEstimator.valueBytes(valueObject, samples);
+    }
+
+    /**
+     * @return the estimated size of the hash table indexing every key, besides the keys and values
+     */
+    public long mainTableOverheadBytes() {
+        return MemoryEstimator.hashTableBytes(this.keyValueStore.size());
+    }
+
+    /**
+     * @return the estimated size of the index of the keys with an expiry
+     */
+    public long expiresOverheadBytes() {
+        return MemoryEstimator.volatileKeysBytes(this.volatileKeys.size());
+    }
+
+    private RedisObject lookup(ByteString key) {
+        var valueObject = this.keyValueStore.get(key);
+        if (valueObject == null) {
+            return null;
+        }
+
+        if (valueObject.isExpired(this.clock.millis())) {
+            removeKey(key);
+            this.expiredKeys++;
+            return null;
+        }
+        return valueObject;
+    }
 
-    private void removeKey(String key) {
-        this.keyValueStore.remove(key);
+    private void removeKey(ByteString key) {
+        var removed = this.keyValueStore.remove(key);
+        if (removed != null) {
+            this.datasetBytes -= MemoryEstimator.keyBytes(key) + MemoryEstimator.valueBytes(removed, 0);
+        }
+        this.volatileKeys.remove(key);
     }
 
     private Integer convertNegativeIndex(int index, int listSize) {
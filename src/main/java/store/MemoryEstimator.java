@@ -0,0 +1,146 @@
+package store;
+
+import store.types.ByteString;
+import store.types.StreamObject;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the heap taken by keys and values from the layout of the objects holding them,
+ * for a 64 bits JVM with compressed references: 12 bytes object headers, 4 bytes references
+ * and objects aligned on 8 bytes.
+ * <p>
+ * The estimates only depend on the contents of a value, not on how it was built,
+ * so the store can maintain its total incrementally: adding an element adds exactly what
+ * removing it subtracts. Spare capacity of growable arrays is left out for the same reason.
+ * Strings of stream entries are assumed to be latin-1, one byte per character.
+ */
+public final class MemoryEstimator {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+
+    // header, array reference, offset, length, owned flag, cached hash and its flag
+    private static final long BYTE_STRING = align(OBJECT_HEADER + REFERENCE + 4 + 4 + 1 + 4 + 1);
+    // header, value reference, hash, coder and its flag
+    private static final long STRING = align(OBJECT_HEADER + REFERENCE + 4 + 1 + 1);
+    // header, value reference, type byte, expiry and LRU clock
+    private static final long REDIS_OBJECT = align(OBJECT_HEADER + REFERENCE + 1 + 8 + 4);
+    // header, hash, key, value and next references
+    private static final long HASH_NODE = align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+    // header, modification count, size, element array reference, and the element array header
+    private static final long ARRAY_LIST = align(OBJECT_HEADER + 4 + 4 + REFERENCE) + ARRAY_HEADER;
+    // header, key, value, left, right and parent references, color
+    private static final long TREE_NODE = align(OBJECT_HEADER + 5 * REFERENCE + 1);
+    // header, comparator, root and view references, size, modification count
+    private static final long TREE_MAP = align(OBJECT_HEADER + 5 * REFERENCE + 4 + 4);
+    // header, table and view references, size, modification count, threshold, load factor
+    private static final long HASH_MAP = align(OBJECT_HEADER + 4 * REFERENCE + 4 * 4);
+    private static final long STREAM_OBJECT = align(OBJECT_HEADER + REFERENCE) + TREE_MAP;
+    private static final long BOXED_INTEGER = align(OBJECT_HEADER + 4);
+
+    private static final int DEFAULT_HASH_TABLE_CAPACITY = 16;
+
+    private MemoryEstimator() {
+    }
+
+    /**
+     * @return the key, and the entry holding its value and metadata
+     */
+    public static long keyBytes(ByteString key) {
+        return byteStringBytes(key) + REDIS_OBJECT;
+    }
+
+    /**
+     * @param samples the number of elements of a list or stream to measure, the size of the others
+     *                is extrapolated from their average. 0 measures every element
+     */
+    public static long valueBytes(RedisObject redisObject, int samples) {
+        return switch (redisObject.getType()) {
+            case STRING -> byteStringBytes(redisObject.getValue());
+            case LIST -> listBytes(redisObject.getValue(), samples);
+            case STREAM -> streamBytes(redisObject.getValue(), samples);
+            default -> 0;
+        };
+    }
+
+    public static long listElementBytes(ByteString element) {
+        return REFERENCE + byteStringBytes(element);
+    }
+
+    public static long streamEntryBytes(String id, Map<String, String> fields) {
+        var bytes = TREE_NODE + stringBytes(id) + HASH_MAP + hashTableBytes(fields.size());
+        for (var field : fields.entrySet()) {
+            bytes += HASH_NODE + stringBytes(field.getKey()) + stringBytes(field.getValue());
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the bucket array of a hash table holding that many entries at a 0.75 load factor,
+     * plus one node per entry
+     */
+    public static long hashTableBytes(int entries) {
+        if (entries == 0) {
+            return 0;
+        }
+        var needed = (int) Math.ceil(entries / 0.75);
+        var capacity = Math.max(DEFAULT_HASH_TABLE_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+        return align(ARRAY_HEADER + (long) capacity * REFERENCE) + entries * HASH_NODE;
+    }
+
+    /**
+     * @return what the index of the keys with an expiry costs per key: a slot in the key array,
+     * and a position boxed in a hash table entry
+     */
+    public static long volatileKeysBytes(int keys) {
+        if (keys == 0) {
+            return 0;
+        }
+        return align(ARRAY_HEADER + (long) keys * REFERENCE) + keys * BOXED_INTEGER
+                + hashTableBytes(keys);
+    }
+
+    private static long listBytes(List<ByteString> list, int samples) {
+        var bytes = ARRAY_LIST;
+        var measured = samples == 0 ? list.size() : Math.min(samples, list.size());
+        if (measured == 0) {
+            return bytes;
+        }
+        long sampledBytes = 0;
+        for (int i = 0; i < measured; i++) {
+            sampledBytes += listElementBytes(list.get(i));
+        }
+        return bytes + sampledBytes * list.size() / measured;
+    }
+
+    private static long streamBytes(StreamObject stream, int samples) {
+        var entries = stream.getValue();
+        var bytes = STREAM_OBJECT;
+        var measured = samples == 0 ? entries.size() : Math.min(samples, entries.size());
+        if (measured == 0) {
+            return bytes;
+        }
+        long sampledBytes = 0;
+        var iterator = entries.entrySet().iterator();
+        for (int i = 0; i < measured; i++) {
+            var entry = iterator.next();
+            sampledBytes += streamEntryBytes(entry.getKey(), entry.getValue());
+        }
+        return bytes + sampledBytes * entries.size() / measured;
+    }
+
+    private static long byteStringBytes(ByteString value) {
+        return BYTE_STRING + align(ARRAY_HEADER + value.length());
+    }
+
+    private static long stringBytes(String value) {
+        return STRING + align(ARRAY_HEADER + value.length());
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -1,23 +1,42 @@
 package store;
 
-import lombok.AllArgsConstructor;
-import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
-import store.expiry.Expiry;
 import store.types.DataType;
 
-import java.time.Instant;
-
-@AllArgsConstructor
+/**
+ * A value in the store with its metadata, kept in primitive fields so that a key costs a single object
+ * besides its value: with compressed references the header, the value reference, the type byte,
+ * the expiry and the LRU clock fit in 32 bytes.
+ * <ul>
+ *     <li>the type is the ordinal of its {@link DataType}</li>
+ *     <li>the expiry is a deadline in epoch millis, {@link #NO_EXPIRY} for keys that never expire</li>
+ *     <li>the LRU clock is the time of the last access in seconds, truncated to {@link #LRU_BITS} bits like in redis</li>
+ * </ul>
+ */
 @Getter
-@Setter
-@Builder
 public class RedisObject {
-   private Object value;
-   private DataType type;
-   private Instant additionTime;
-   private Expiry expiryType;
+    // the latest possible deadline, so that checking the expiry of a key without one is the same comparison
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    public static final int LRU_BITS = 24;
+    private static final int LRU_CLOCK_MAX = (1 << LRU_BITS) - 1;
+    private static final long LRU_CLOCK_RESOLUTION_MILLIS = 1000;
+
+    private static final DataType[] TYPES = DataType.values();
+
+    @Setter
+    private Object value;
+    private final byte type;
+    private final long expiresAtMillis;
+    private int lruClock;
+
+    public RedisObject(Object value, DataType type, long expiresAtMillis, long nowMillis) {
+        this.value = value;
+        this.type = (byte) type.ordinal();
+        this.expiresAtMillis = expiresAtMillis;
+        this.lruClock = lruClock(nowMillis);
+    }
 
     /**
      * This is a generic method.
@@ -29,7 +48,40 @@ public class RedisObject {
         return (T) value;
     }
 
-   public boolean isExpired() {
-       return this.expiryType.isExpired(this.additionTime);
-   }
+    public DataType getType() {
+        return TYPES[this.type];
+    }
+
+    public boolean hasExpiry() {
+        return this.expiresAtMillis != NO_EXPIRY;
+    }
+
+    /**
+     * @param nowMillis the current time in epoch millis, as given by the server clock
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis > this.expiresAtMillis;
+    }
+
+    /**
+     * Records an access to the key.
+     * @param nowMillis the current time in epoch millis, as given by the server clock
+     */
+    public void touch(long nowMillis) {
+        this.lruClock = lruClock(nowMillis);
+    }
+
+    /**
+     * @param nowMillis the current time in epoch millis, as given by the server clock
+     * @return the time since the last access, at a resolution of one second.
+     * The LRU clock wraps around every 194 days, keys idle for longer than that look more recently used
+     */
+    public long idleMillis(long nowMillis) {
+        var elapsed = (lruClock(nowMillis) - this.lruClock) & LRU_CLOCK_MAX;
+        return elapsed * LRU_CLOCK_RESOLUTION_MILLIS;
+    }
+
+    private static int lruClock(long nowMillis) {
+        return (int) (nowMillis / LRU_CLOCK_RESOLUTION_MILLIS & LRU_CLOCK_MAX);
+    }
 }
@@ -0,0 +1,36 @@
+package store;
+
+/**
+ * The server's notion of the current time in epoch millis, read by expiry checks instead of the system clock.
+ * The time is cached: the event loops refresh it once per iteration, before running the commands they read,
+ * and the active expiry cycle refreshes it before sampling keys. Every command of an iteration thus sees
+ * the same time, like redis' cached mstime, and reading it costs a volatile load instead of a clock call.
+ * <p>
+ * In precise mode the cache is bypassed and every read returns the system time, for tests that need
+ * expiries to be observed to the millisecond.
+ */
+public class ServerClock {
+    private final boolean precise;
+    private volatile long cachedMillis = System.currentTimeMillis();
+
+    public ServerClock(boolean precise) {
+        this.precise = precise;
+    }
+
+    /**
+     * @return the time of the last refresh, or the system time in precise mode
+     */
+    public long millis() {
+        return this.precise ? System.currentTimeMillis() : this.cachedMillis;
+    }
+
+    /**
+     * Refreshes the cached time from the system clock.
+     * @return the refreshed time
+     */
+    public long update() {
+        var now = System.currentTimeMillis();
+        this.cachedMillis = now;
+        return now;
+    }
+}
@@ -3,6 +3,7 @@ package store;
 import commands.ProtocolUtils;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import store.types.ByteString;
 import store.types.StreamObject;
 
 import java.nio.ByteBuffer;
@@ -15,7 +16,7 @@ import static commands.Errors.*;
 public class StreamIdUtils {
     private final KeyValueStore kvStore;
 
-    public String formatId(String streamId, String streamKey) {
+    public String formatId(String streamId, ByteString streamKey) {
         var streamObject = this.kvStore.getRedisObject(streamKey);
         if (streamObject == null) {
             return handleSequenceWildcard(streamId);
@@ -35,38 +36,30 @@ public class StreamIdUtils {
 
     public static ByteBuffer checkIllegalStructure(String streamId) {
         if (streamId.equals("0-0")) {
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(STREAM_ID_NOT_ALLOWED).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(STREAM_ID_NOT_ALLOWED);
         }
 
         if (!streamId.matches("^(\\d+)-(\\d+|\\*)$")) {
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(INVALID_STREAM_ID).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(INVALID_STREAM_ID);
         }
         return null;
     }
 
     public ByteBuffer checkRangeIllegalStructure(String rangeLimit) {
         if (!rangeLimit.matches("^(\\d+)-(\\d+)|(\\d+)|-|\\+$")) {
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(INVALID_STREAM_ID).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(INVALID_STREAM_ID);
         }
         return null;
     }
 
     public ByteBuffer checkSimpleId(String id) {
         if (!id.matches("^(\\d+)-(\\d+)|(\\d+)$")) {
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(INVALID_STREAM_ID).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(INVALID_STREAM_ID);
         }
         return null;
     }
 
-    public ByteBuffer getTimestampErrors(String streamKey, String streamId) {
+    public ByteBuffer getTimestampErrors(ByteString streamKey, String streamId) {
         var streamObject = this.kvStore.getRedisObject(streamKey);
         if (streamObject == null) {
             return null;
@@ -89,9 +82,7 @@ public class StreamIdUtils {
         long idSequence = Long.parseLong(splitId[1]);
 
         if (idTimestamp < lastIdTimestamp || ((idTimestamp == lastIdTimestamp) && (idSequence <= lastIdSequence)) ) {
-            return ByteBuffer.wrap(
-                    ProtocolUtils.encodeSimpleError(STREAM_ID_LOWER).getBytes()
-            );
+            return ProtocolUtils.encodeSimpleError(STREAM_ID_LOWER);
         }
 
         return null;
@@ -0,0 +1,48 @@
+package store.expiry;
+
+import store.types.ByteString;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * The keys that have an expiry, in a form that can be sampled at random in constant time:
+ * an array of keys, and the position of every key in it so that a key is removed by moving
+ * the last one into its slot. Not thread-safe, it is only used under the execution lock.
+ */
+public class VolatileKeys {
+    private final List<ByteString> keys = new ArrayList<>();
+    private final Map<ByteString, Integer> positions = new HashMap<>();
+
+    public void add(ByteString key) {
+        if (this.positions.putIfAbsent(key, this.keys.size()) == null) {
+            this.keys.add(key);
+        }
+    }
+
+    public void remove(ByteString key) {
+        var position = this.positions.remove(key);
+        if (position == null) {
+            return;
+        }
+        var last = this.keys.removeLast();
+        if (position < this.keys.size()) {
+            this.keys.set(position, last);
+            this.positions.put(last, position);
+        }
+    }
+
+    /**
+     * @return a key picked uniformly at random, the set must not be empty
+     */
+    public ByteString random(RandomGenerator random) {
+        return this.keys.get(random.nextInt(this.keys.size()));
+    }
+
+    public int size() {
+        return this.keys.size();
+    }
+}
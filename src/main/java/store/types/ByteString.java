@@ -0,0 +1,252 @@
+package store.types;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary-safe string used for command arguments, keys and string values.
+ * A ByteString is a view over a byte array range: the decoder hands out slices of the
+ * connection's read buffer, which are only valid while the command is executing.
+ * Anything kept after that (stored keys and values, queued commands, blocked clients)
+ * must be a {@link #copy()}. The hash code is computed once and cached.
+ */
+public final class ByteString implements Comparable<ByteString> {
+    public static final ByteString EMPTY = new ByteString(new byte[0], 0, 0, true);
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    // false for views over a shared array that is going to be reused
+    private final boolean owned;
+    private int hash;
+    private boolean hashIsZero;
+
+    private ByteString(byte[] bytes, int offset, int length, boolean owned) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.owned = owned;
+    }
+
+    public static ByteString of(String value) {
+        var encoded = value.getBytes(StandardCharsets.UTF_8);
+        return new ByteString(encoded, 0, encoded.length, true);
+    }
+
+    public static ByteString of(long value) {
+        return of(Long.toString(value));
+    }
+
+    /**
+     * @param bytes the array to take ownership of, it must not be modified afterwards
+     */
+    public static ByteString wrap(byte[] bytes) {
+        return new ByteString(bytes, 0, bytes.length, true);
+    }
+
+    /**
+     * Returns a view over a range of an array, without copying it.
+     * The view is only valid as long as the array range is not reused.
+     */
+    public static ByteString slice(byte[] bytes, int offset, int length) {
+        return new ByteString(bytes, offset, length, false);
+    }
+
+    /**
+     * Takes the next length bytes of a buffer, advancing its position.
+     * Heap buffers are sliced, direct buffers are copied.
+     */
+    public static ByteString read(ByteBuffer buffer, int length) {
+        if (buffer.hasArray()) {
+            var slice = new ByteString(buffer.array(), buffer.arrayOffset() + buffer.position(), length, false);
+            buffer.position(buffer.position() + length);
+            return slice;
+        }
+        var copy = new byte[length];
+        buffer.get(copy);
+        return new ByteString(copy, 0, length, true);
+    }
+
+    public static List<ByteString> listOf(String... values) {
+        var list = new ArrayList<ByteString>(values.length);
+        for (var value : values) {
+            list.add(of(value));
+        }
+        return list;
+    }
+
+    /**
+     * @return copies of the given strings, safe to keep after the command has executed
+     */
+    public static List<ByteString> copyAll(List<ByteString> values) {
+        var copies = new ArrayList<ByteString>(values.size());
+        for (var value : values) {
+            copies.add(value.copy());
+        }
+        return copies;
+    }
+
+    /**
+     * @return a string owning its bytes. Strings that already own them are returned as they are
+     */
+    public ByteString copy() {
+        if (this.owned) {
+            return this;
+        }
+        var copy = new ByteString(Arrays.copyOfRange(this.bytes, this.offset, this.offset + this.length),
+                0, this.length, true);
+        copy.hash = this.hash;
+        copy.hashIsZero = this.hashIsZero;
+        return copy;
+    }
+
+    public int length() {
+        return this.length;
+    }
+
+    public boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    public byte byteAt(int index) {
+        return this.bytes[this.offset + index];
+    }
+
+    /**
+     * @return a view over a range of the string, sharing its bytes
+     */
+    public ByteString substring(int start, int end) {
+        if (start < 0 || end > this.length || start > end) {
+            throw new IndexOutOfBoundsException("range [" + start + ", " + end + ") of length " + this.length);
+        }
+        return new ByteString(this.bytes, this.offset + start, end - start, false);
+    }
+
+    /**
+     * @return a new array holding the bytes of the string
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(this.bytes, this.offset, this.offset + this.length);
+    }
+
+    /**
+     * Writes the string to a buffer in write mode.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(this.bytes, this.offset, this.length);
+    }
+
+    /**
+     * Compares with an ASCII string, ignoring case. Used for option names and subcommands.
+     */
+    public boolean equalsIgnoreCase(String ascii) {
+        if (ascii.length() != this.length) {
+            return false;
+        }
+        for (int i = 0; i < this.length; i++) {
+            var b = this.bytes[this.offset + i];
+            var c = ascii.charAt(i);
+            if (b != c && toUpperAscii(b) != toUpperAscii((byte) c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the string as a signed decimal long, the way redis parses integer arguments.
+     * @throws NumberFormatException if the string is not a valid long
+     */
+    public long parseLong() {
+        if (this.length == 0 || this.length > 20) {
+            throw new NumberFormatException("not an integer");
+        }
+
+        var i = 0;
+        var negative = this.bytes[this.offset] == '-';
+        if (negative) {
+            if (this.length == 1) {
+                throw new NumberFormatException("not an integer");
+            }
+            i = 1;
+        }
+
+        long result = 0;
+        for (; i < this.length; i++) {
+            var digit = this.bytes[this.offset + i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("not an integer");
+            }
+            // accumulated as a negative number, so that Long.MIN_VALUE fits
+            if (result < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("out of range");
+            }
+            result = result * 10 - digit;
+        }
+
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                throw new NumberFormatException("out of range");
+            }
+            return -result;
+        }
+        return result;
+    }
+
+    public int parseInt() {
+        var value = parseLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("out of range");
+        }
+        return (int) value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ByteString other) || other.length != this.length) {
+            return false;
+        }
+        return Arrays.equals(this.bytes, this.offset, this.offset + this.length,
+                other.bytes, other.offset, other.offset + other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        var h = this.hash;
+        if (h == 0 && !this.hashIsZero) {
+            for (int i = 0; i < this.length; i++) {
+                h = 31 * h + this.bytes[this.offset + i];
+            }
+            if (h == 0) {
+                this.hashIsZero = true;
+            } else {
+                this.hash = h;
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public int compareTo(ByteString other) {
+        return Arrays.compareUnsigned(this.bytes, this.offset, this.offset + this.length,
+                other.bytes, other.offset, other.offset + other.length);
+    }
+
+    /**
+     * @return the string decoded as UTF-8, for logging and text arguments
+     */
+    @Override
+    public String toString() {
+        return new String(this.bytes, this.offset, this.length, StandardCharsets.UTF_8);
+    }
+
+    private static int toUpperAscii(byte b) {
+        return b >= 'a' && b <= 'z' ? b - 32 : b;
+    }
+}
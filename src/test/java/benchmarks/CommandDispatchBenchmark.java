@@ -0,0 +1,123 @@
+package benchmarks;
+
+import commands.*;
+import commands.async.AsyncCommandStrategy;
+import commands.transaction.TransactionalCommandStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of going from a command name, as decoded from the read buffer,
+ * to the code running the command, for a mix of commands in the case clients usually send them.
+ * {@code lookupTable} hashes the name bytes straight to the command's executor,
+ * {@code upperCaseAndScan} is the former dispatch: decode and upper-case the name, scan the
+ * commands comparing names, then find the strategy and switch on its kind.
+ * Both call a strategy doing nothing, so the difference is the dispatch itself.
+ * <p>
+ * Usage: {@code CommandDispatchBenchmark}, from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandDispatchBenchmark {
+    private static final String[] NAMES = {"GET", "SET", "get", "set", "INCR", "LRANGE", "lpush", "Ping", "XADD", "EXEC"};
+
+    private List<ByteString> names;
+    private CommandTable table;
+    private Map<Command, Object> strategies;
+    private ByteBuffer reply;
+
+    @Setup
+    public void setup() {
+        // the names are slices of one buffer, like the arguments of a pipeline of commands
+        var buffer = String.join("", NAMES).getBytes(StandardCharsets.UTF_8);
+        this.names = new ArrayList<>();
+        var offset = 0;
+        for (var name : NAMES) {
+            this.names.add(ByteString.slice(buffer, offset, name.length()));
+            offset += name.length();
+        }
+
+        this.reply = ProtocolUtils.ok();
+        CommandStrategy strategy = _ -> this.reply;
+        var descriptors = new ArrayList<CommandDescriptor>();
+        this.strategies = new HashMap<>();
+        for (var command : Command.values()) {
+            if (command == Command.NO_COMMAND) {
+                continue;
+            }
+            descriptors.add(new CommandDescriptor(command, new CommandExecutor() {
+                @Override
+                public boolean execute(List<ByteString> args, SocketChannel client) {
+                    return !ProtocolUtils.isError(strategy.execute(args));
+                }
+
+                @Override
+                public ByteBuffer executeInTransaction(List<ByteString> args, SocketChannel client) {
+                    return strategy.execute(args);
+                }
+            }));
+            this.strategies.put(command, strategy);
+        }
+        this.table = new CommandTable(descriptors);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void lookupTable(Blackhole blackhole) {
+        for (var name : this.names) {
+            var descriptor = this.table.get(name);
+            blackhole.consume(descriptor.executor().executeInTransaction(List.of(), null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void upperCaseAndScan(Blackhole blackhole) {
+        for (var name : this.names) {
+            var strategy = this.strategies.get(scan(name.toString().toUpperCase()));
+            var response = switch (strategy) {
+                case null -> null;
+                case CommandStrategy sync -> sync.execute(List.of());
+                case AsyncCommandStrategy _ -> null;
+                case TransactionalCommandStrategy transactional -> transactional.execute(List.of(), null);
+                default -> null;
+            };
+            blackhole.consume(response);
+        }
+    }
+
+    private static Command scan(String name) {
+        for (var command : Command.values()) {
+            if (command.toString().equalsIgnoreCase(name)) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(CommandDispatchBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
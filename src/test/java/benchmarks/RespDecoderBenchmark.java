@@ -0,0 +1,65 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import parser.RespDecoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of decoding one command from a read buffer holding a pipeline of commands,
+ * the way the event loop decodes them.
+ * Run with the GC profiler and look at gc.alloc.rate.norm, the bytes allocated per command:
+ * only the argument list and the argument views over the read buffer should remain.
+ * <p>
+ * Usage: {@code RespDecoderBenchmark}, from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RespDecoderBenchmark {
+    private static final int PIPELINED_COMMANDS = 128;
+
+    @Param({"16", "1024"})
+    private int valueSize;
+
+    private ByteBuffer readBuffer;
+    private RespDecoder decoder;
+
+    @Setup
+    public void setup() {
+        var value = "v".repeat(this.valueSize);
+        var command = "*3\r\n$3\r\nSET\r\n$10\r\nkey:000001\r\n$" + value.length() + "\r\n" + value + "\r\n";
+        var pipeline = command.repeat(PIPELINED_COMMANDS).getBytes(StandardCharsets.UTF_8);
+
+        this.readBuffer = ByteBuffer.allocate(pipeline.length);
+        this.readBuffer.put(pipeline).flip();
+        this.decoder = new RespDecoder();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINED_COMMANDS)
+    public void decodePipeline(Blackhole blackhole) {
+        this.readBuffer.rewind();
+        for (int i = 0; i < PIPELINED_COMMANDS; i++) {
+            blackhole.consume(this.decoder.decode(this.readBuffer));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(RespDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,135 @@
+package benchmarks;
+
+import server.Configuration;
+import server.RedisServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static server.Configuration.*;
+
+/**
+ * Compares the selector based event loop with the virtual-thread-per-connection server mode
+ * on a connection-heavy workload: many clients, each sending few requests.
+ * Each mode runs in-process on its own port. Every client connects, performs a few
+ * SET / GET round trips and keeps its connection open until all clients are done.
+ * <p>
+ * Usage: {@code ServerModeBenchmark [connections] [roundTripsPerConnection] [ioThreads]},
+ * defaults are 10000, 10 and 1. Running 10k+ connections needs a high enough open files limit
+ * ({@code ulimit -n}), as both the clients and the server live in this process.
+ */
+public class ServerModeBenchmark {
+    private static final byte[] SET = "*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$1\r\nv\r\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] GET = "*2\r\n$3\r\nGET\r\n$3\r\nkey\r\n".getBytes(StandardCharsets.UTF_8);
+    // "+OK\r\n" followed by "$1\r\nv\r\n"
+    private static final int REPLY_BYTES = 5 + 7;
+
+    public static void main(String[] args) throws Exception {
+        var connections = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        var roundTrips = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        var ioThreads = args.length > 2 ? args[2] : "1";
+
+        startServer(EVENT_LOOP_MODE, 16379, ioThreads);
+        startServer(VIRTUAL_THREADS_MODE, 16380, ioThreads);
+        Thread.sleep(1000);
+
+        // warm up both servers before measuring
+        run(16379, 1000, roundTrips);
+        run(16380, 1000, roundTrips);
+
+        report("event-loop (io-threads " + ioThreads + ")", run(16379, connections, roundTrips));
+        report("virtual-threads", run(16380, connections, roundTrips));
+        System.exit(0);
+    }
+
+    private static void startServer(String mode, int port, String ioThreads) {
+        var configuration = new Configuration();
+        configuration.getServer().put(TCP_PORT, String.valueOf(port));
+        configuration.getServer().put(SERVER_MODE, mode);
+        configuration.getServer().put(IO_THREADS, ioThreads);
+
+        var serverThread = new Thread(() -> {
+            try {
+                new RedisServer(configuration).run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, mode);
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    private record Result(int connections, long requests, long elapsedNanos, long[] latenciesNanos) {}
+
+    private static Result run(int port, int connections, int roundTrips) throws Exception {
+        var latencies = new long[connections * roundTrips];
+        var requests = new AtomicLong();
+        var finished = new CountDownLatch(connections);
+
+        var start = System.nanoTime();
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                var clientIndex = c;
+                clients.submit(() -> {
+                    try (var socket = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+                        var reply = ByteBuffer.allocate(REPLY_BYTES);
+                        for (int r = 0; r < roundTrips; r++) {
+                            var sentAt = System.nanoTime();
+                            socket.write(new ByteBuffer[] {ByteBuffer.wrap(SET), ByteBuffer.wrap(GET)});
+                            reply.clear();
+                            while (reply.hasRemaining()) {
+                                if (socket.read(reply) == -1) {
+                                    throw new IOException("server closed the connection");
+                                }
+                            }
+                            latencies[clientIndex * roundTrips + r] = System.nanoTime() - sentAt;
+                            requests.addAndGet(2);
+                        }
+                        finished.countDown();
+                        // hold the connection open until every client is done
+                        finished.await();
+                    } catch (Exception e) {
+                        finished.countDown();
+                        System.err.println("client " + clientIndex + " failed: " + e.getMessage());
+                    }
+                    return null;
+                });
+            }
+            finished.await();
+        }
+        var elapsed = System.nanoTime() - start;
+        return new Result(connections, requests.get(), elapsed, latencies);
+    }
+
+    private static void report(String mode, Result result) {
+        var latencies = result.latenciesNanos();
+        Arrays.sort(latencies);
+        var seconds = result.elapsedNanos() / 1e9;
+
+        System.out.printf("%-28s connections=%d requests=%d time=%.2fs throughput=%.0f req/s " +
+                        "p50=%.2fms p99=%.2fms p99.9=%.2fms%n",
+                mode,
+                result.connections(),
+                result.requests(),
+                seconds,
+                result.requests() / seconds,
+                percentile(latencies, 0.50) / 1e6,
+                percentile(latencies, 0.99) / 1e6,
+                percentile(latencies, 0.999) / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        var index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.clamp(index, 0, sorted.length - 1)];
+    }
+}
@@ -0,0 +1,108 @@
+package commands;
+
+import org.junit.jupiter.api.Test;
+import store.types.ByteString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandTableTest {
+
+    @Test
+    void shouldFindEveryCommandIgnoringCase() {
+        // given
+        var table = tableOf(Command.values());
+
+        for (var command : Command.values()) {
+            var name = command.toString();
+
+            // when
+            var lowerCase = table.get(ByteString.of(name.toLowerCase()));
+            var upperCase = table.get(ByteString.of(name.toUpperCase()));
+            var mixedCase = table.get(ByteString.of(mixCase(name)));
+
+            // then
+            assertNotNull(lowerCase, name);
+            assertSame(command, lowerCase.command());
+            assertSame(lowerCase, upperCase);
+            assertSame(lowerCase, mixedCase);
+        }
+    }
+
+    @Test
+    void shouldFindCommandFromSliceOfReadBuffer() {
+        // given
+        var table = tableOf(Command.values());
+        var bytes = "*2\r\n$3\r\ngEt\r\n$3\r\nkey\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        // when
+        var descriptor = table.get(ByteString.slice(bytes, 8, 3));
+
+        // then
+        assertSame(Command.GET, descriptor.command());
+    }
+
+    @Test
+    void shouldMissUnknownNames() {
+        // given
+        var table = tableOf(Command.GET, Command.SET, Command.PING, Command.NO_COMMAND);
+
+        // then
+        assertNull(table.get(ByteString.of("nope")));
+        assertNull(table.get(ByteString.of("")));
+        assertNull(table.get(ByteString.of("ge")));
+        assertNull(table.get(ByteString.of("gett")));
+        assertNull(table.get(ByteString.of("del")));
+        assertNull(table.get(ByteString.of("x".repeat(1000))));
+        // '_' and DEL only differ by the case bit, so they hash the same but are not letters
+        assertNull(table.get(ByteString.of("no\u007Fcommand")));
+        assertNotNull(table.get(ByteString.of("NO_COMMAND")));
+    }
+
+    @Test
+    void shouldRejectCommandRegisteredTwice() {
+        // then
+        var error = assertThrows(IllegalArgumentException.class,
+                () -> tableOf(Command.GET, Command.SET, Command.GET));
+        assertTrue(error.getMessage().contains("get"));
+    }
+
+    @Test
+    void shouldKeepRegistrationOrder() {
+        // given
+        var table = tableOf(Command.SET, Command.GET, Command.PING);
+
+        // then
+        assertEquals(3, table.size());
+        assertEquals(List.of(Command.SET, Command.GET, Command.PING),
+                table.descriptors().stream().map(CommandDescriptor::command).toList());
+    }
+
+    @Test
+    void shouldHandleEmptyTable() {
+        // given
+        var table = tableOf();
+
+        // then
+        assertEquals(0, table.size());
+        assertNull(table.get(ByteString.of("get")));
+    }
+
+    private static CommandTable tableOf(Command... commands) {
+        return new CommandTable(Arrays.stream(commands)
+                .map(command -> new CommandDescriptor(command, null))
+                .toList());
+    }
+
+    private static String mixCase(String name) {
+        var mixed = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            var c = name.charAt(i);
+            mixed.append(i % 2 == 0 ? Character.toUpperCase(c) : Character.toLowerCase(c));
+        }
+        return mixed.toString();
+    }
+}
@@ -3,8 +3,8 @@ package commands;
 import io.lettuce.core.ClientOptions;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
-import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.protocol.ProtocolVersion;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterAll;
@@ -46,6 +46,14 @@ public class RedisTestContainer {
     }
 
     public static RedisCommands<String, String> registerClient() {
+        return createLettuceClient().connect().sync();
+    }
+
+    public static RedisCommands<byte[], byte[]> registerBinaryClient() {
+        return createLettuceClient().connect(ByteArrayCodec.INSTANCE).sync();
+    }
+
+    private static RedisClient createLettuceClient() {
         String host = redis.getHost();
         Integer port = redis.getMappedPort(6379);
 
@@ -62,8 +70,6 @@ public class RedisTestContainer {
 
         RedisClient lettuceClient = RedisClient.create(uri);
         lettuceClient.setOptions(clientOptions);
-
-        StatefulRedisConnection<String, String> connection = lettuceClient.connect();
-        return connection.sync();
+        return lettuceClient;
     }
 }
\ No newline at end of file
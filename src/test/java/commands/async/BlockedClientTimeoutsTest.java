@@ -0,0 +1,138 @@
+package commands.async;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockedClientTimeoutsTest {
+
+    @Test
+    void shouldExpireClientsInDeadlineOrder() {
+        // given
+        var timeouts = new BlockedClientTimeouts();
+        var late = client(300);
+        var early = client(100);
+        timeouts.schedule(late);
+        timeouts.schedule(early);
+
+        // when
+        var first = timeouts.pollExpired(1000);
+        var second = timeouts.pollExpired(1000);
+
+        // then
+        assertSame(early, first);
+        assertSame(late, second);
+        assertNull(timeouts.pollExpired(1000));
+        assertEquals(0, timeouts.size());
+    }
+
+    @Test
+    void shouldNotExpireClientsBeforeTheirDeadline() {
+        // given
+        var timeouts = new BlockedClientTimeouts();
+        timeouts.schedule(client(100));
+
+        // then
+        assertNull(timeouts.pollExpired(99));
+        assertEquals(100, timeouts.nextDeadline());
+        assertEquals(1, timeouts.size());
+    }
+
+    @Test
+    void shouldIgnoreClientsWithoutDeadline() {
+        // given
+        var timeouts = new BlockedClientTimeouts();
+        var forever = client(0);
+
+        // when
+        timeouts.schedule(forever);
+        release(timeouts, forever);
+
+        // then
+        assertEquals(0, timeouts.size());
+        assertEquals(-1, timeouts.nextDeadline());
+    }
+
+    @Test
+    void shouldSkipReleasedClients() {
+        // given
+        var timeouts = new BlockedClientTimeouts();
+        var served = client(100);
+        var waiting = client(200);
+        timeouts.schedule(served);
+        timeouts.schedule(waiting);
+
+        // when
+        release(timeouts, served);
+
+        // then
+        assertEquals(1, timeouts.size());
+        assertEquals(200, timeouts.nextDeadline());
+        assertSame(waiting, timeouts.pollExpired(1000));
+        assertEquals(0, timeouts.size());
+    }
+
+    @Test
+    void shouldNotCountTimedOutClientsAsCancelled() {
+        // given
+        var timeouts = new BlockedClientTimeouts();
+        for (int i = 1; i <= 10; i++) {
+            timeouts.schedule(client(i));
+        }
+        var pending = client(5000);
+        timeouts.schedule(pending);
+
+        // when
+        // the handler releases a timed out client right after polling it, which cancels it
+        BlockedClient timedOut;
+        while ((timedOut = timeouts.pollExpired(1000)) != null) {
+            release(timeouts, timedOut);
+        }
+
+        // then
+        assertEquals(1, timeouts.size());
+        assertEquals(5000, timeouts.nextDeadline());
+    }
+
+    @Test
+    void shouldKeepSizeConsistentWithMixOfTimeoutsAndReleases() {
+        // given
+        var timeouts = new BlockedClientTimeouts();
+        var clients = new ArrayList<BlockedClient>();
+        for (int i = 0; i < 1000; i++) {
+            var client = client(1 + i);
+            clients.add(client);
+            timeouts.schedule(client);
+        }
+
+        // when
+        // every other client is served before its deadline, enough of them to trigger a purge
+        for (int i = 0; i < clients.size(); i += 2) {
+            release(timeouts, clients.get(i));
+        }
+        var expired = 0;
+        BlockedClient timedOut;
+        while ((timedOut = timeouts.pollExpired(500)) != null) {
+            assertFalse(timedOut.isReleased());
+            release(timeouts, timedOut);
+            expired++;
+        }
+
+        // then
+        // odd indexes have deadlines 2, 4 ... 500 among the first 500 millis
+        assertEquals(250, expired);
+        assertEquals(250, timeouts.size());
+        assertEquals(502, timeouts.nextDeadline());
+    }
+
+    private static BlockedClient client(long deadlineMillis) {
+        return BlockedClient.builder().deadlineMillis(deadlineMillis).build();
+    }
+
+    private static void release(BlockedClientTimeouts timeouts, BlockedClient client) {
+        client.setReleased(true);
+        timeouts.cancel(client);
+    }
+}
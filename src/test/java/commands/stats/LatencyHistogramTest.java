@@ -0,0 +1,129 @@
+package commands.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void shouldCoverTheTrackableRangeWithContiguousBuckets() {
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            // then
+            var lowest = LatencyHistogram.lowestValue(i);
+            var highest = LatencyHistogram.highestValue(i);
+            assertEquals(i, LatencyHistogram.bucketIndex(lowest), "lowest value of bucket " + i);
+            assertEquals(i, LatencyHistogram.bucketIndex(highest), "highest value of bucket " + i);
+            if (i > 0) {
+                assertEquals(LatencyHistogram.highestValue(i - 1) + 1, lowest, "start of bucket " + i);
+            }
+        }
+        assertEquals(0, LatencyHistogram.lowestValue(0));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE, LatencyHistogram.highestValue(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    void shouldKeepSmallValuesExact() {
+        for (long value = 0; value < LatencyHistogram.SUB_BUCKETS; value++) {
+            // then
+            var index = LatencyHistogram.bucketIndex(value);
+            assertEquals(value, LatencyHistogram.lowestValue(index));
+            assertEquals(value, LatencyHistogram.highestValue(index));
+        }
+    }
+
+    @Test
+    void shouldBoundBucketWidthByRelativePrecision() {
+        for (long value = LatencyHistogram.SUB_BUCKETS; value <= LatencyHistogram.MAX_TRACKABLE; value = value * 3 / 2 + 1) {
+            // when
+            var index = LatencyHistogram.bucketIndex(value);
+            var width = LatencyHistogram.highestValue(index) - LatencyHistogram.lowestValue(index) + 1;
+
+            // then
+            assertTrue(width <= value / LatencyHistogram.SUB_BUCKETS, "bucket of " + value + " is " + width + " wide");
+        }
+    }
+
+    @Test
+    void shouldReplyZeroWhenNothingWasRecorded() {
+        // given
+        var histogram = new LatencyHistogram();
+
+        // then
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.valueAtPercentile(50));
+        assertEquals(List.of(), histogram.powerOfTwoBuckets());
+    }
+
+    @Test
+    void shouldClampValuesOutOfRange() {
+        // given
+        var histogram = new LatencyHistogram();
+
+        // when
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        // then
+        assertEquals(2, histogram.count());
+        assertEquals(0, histogram.valueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void shouldReportPercentilesOfRecordedValues() {
+        // given
+        var histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        // then
+        assertEquals(1000, histogram.count());
+        assertWithinPrecision(500_000, histogram.valueAtPercentile(50));
+        assertWithinPrecision(990_000, histogram.valueAtPercentile(99));
+        assertWithinPrecision(999_000, histogram.valueAtPercentile(99.9));
+        assertWithinPrecision(1_000_000, histogram.valueAtPercentile(100));
+        assertWithinPrecision(1_000, histogram.valueAtPercentile(0));
+    }
+
+    @Test
+    void shouldReportOutliersInHighPercentilesOnly() {
+        // given
+        var histogram = new LatencyHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.record(20);
+        }
+        histogram.record(5_000_000);
+
+        // then
+        assertEquals(20, histogram.valueAtPercentile(50));
+        assertEquals(20, histogram.valueAtPercentile(99.9));
+        assertWithinPrecision(5_000_000, histogram.valueAtPercentile(99.95));
+    }
+
+    @Test
+    void shouldFoldIntoPowerOfTwoMicrosecondBuckets() {
+        // given
+        var histogram = new LatencyHistogram();
+
+        // when
+        histogram.record(100);
+        histogram.record(1_500);
+        histogram.record(3_000_000);
+
+        // then
+        assertEquals(List.of(
+                new LatencyHistogram.Bucket(1, 1),
+                new LatencyHistogram.Bucket(2, 2),
+                new LatencyHistogram.Bucket(4096, 3)
+        ), histogram.powerOfTwoBuckets());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / LatencyHistogram.SUB_BUCKETS,
+                "expected about " + expected + " got " + actual);
+    }
+}
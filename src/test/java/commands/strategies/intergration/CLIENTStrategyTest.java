@@ -0,0 +1,71 @@
+package commands.strategies.intergration;
+
+import commands.RedisTestContainer;
+import io.lettuce.core.KillArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CLIENTStrategyTest extends RedisTestContainer {
+    private static RedisCommands<String, String> client;
+
+    @BeforeEach
+    void init() {
+        client = registerClient();
+    }
+
+    @Test
+    void shouldSetAndGetClientName() {
+        // given
+        var name = "worker-1";
+
+        // when
+        var result = client.clientSetname(name);
+
+        // then
+        assertEquals("OK", result);
+        assertEquals(name, client.clientGetname());
+    }
+
+    @Test
+    void shouldListConnectedClients() {
+        // given
+        var other = registerClient();
+        other.clientSetname("listed");
+        var otherId = other.clientId();
+
+        // when
+        var list = client.clientList();
+
+        // then
+        assertTrue(list.contains("id=" + otherId + " "));
+        assertTrue(list.contains("name=listed"));
+        assertTrue(list.contains("id=" + client.clientId() + " "));
+    }
+
+    @Test
+    void shouldKillClientById() {
+        // given
+        var victim = registerClient();
+        var victimId = victim.clientId();
+
+        // when
+        var killed = client.clientKill(KillArgs.Builder.id(victimId));
+
+        // then
+        assertEquals(1L, killed);
+        assertFalse(client.clientList().contains("id=" + victimId + " "));
+    }
+
+    @Test
+    void shouldReportConnectedClientsInInfo() {
+        // when
+        var info = client.info("clients");
+
+        // then
+        assertTrue(info.contains("connected_clients:"));
+        assertFalse(info.contains("connected_clients:0"));
+    }
+}
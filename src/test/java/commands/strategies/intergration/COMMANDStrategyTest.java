@@ -0,0 +1,69 @@
+package commands.strategies.intergration;
+
+import commands.RedisTestContainer;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.output.ValueListOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class COMMANDStrategyTest extends RedisTestContainer {
+    private static RedisCommands<String, String> client;
+
+    @BeforeEach
+    void init() {
+        client = registerClient();
+    }
+
+    @Test
+    void shouldDescribeCommand() {
+        // when
+        var info = client.commandInfo("get", "no-such-command");
+
+        // then
+        assertEquals(2, info.size());
+        assertEquals(List.of("get", 2L, List.of("readonly", "fast"), 1L, 1L, 1L), info.getFirst());
+        assertNull(info.get(1));
+    }
+
+    @Test
+    void shouldCountEveryCommand() {
+        // when
+        var count = client.commandCount();
+
+        // then
+        assertEquals(client.command().size(), count);
+    }
+
+    @Test
+    void shouldFindKeysOfMovableKeysCommand() {
+        // given
+        var args = new CommandArgs<>(StringCodec.UTF8)
+                .add("GETKEYS").add("XREAD").add("COUNT").add(2).add("STREAMS").add("s1").add("s2").add("0").add("$");
+
+        // when
+        var keys = client.dispatch(CommandType.COMMAND, new ValueListOutput<>(StringCodec.UTF8), args);
+
+        // then
+        assertEquals(List.of("s1", "s2"), keys);
+    }
+
+    @Test
+    void shouldRejectWrongNumberOfArguments() {
+        // when
+        var error = assertThrows(RedisCommandExecutionException.class,
+                () -> client.dispatch(CommandType.GET, new StatusOutput<>(StringCodec.UTF8))
+        );
+
+        // then
+        assertEquals("ERR wrong number of arguments for 'get' command", error.getMessage());
+    }
+}
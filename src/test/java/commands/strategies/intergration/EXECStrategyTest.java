@@ -0,0 +1,56 @@
+package commands.strategies.intergration;
+
+import commands.RedisTestContainer;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EXECStrategyTest extends RedisTestContainer {
+    private static RedisCommands<String, String> client;
+    private static final String KEY = "key";
+    private static final String COUNTER = "counter";
+
+    @BeforeEach
+    void init() {
+        client = registerClient();
+        client.del(KEY, COUNTER);
+    }
+
+    @Test
+    void shouldReplyWithEveryQueuedResult() {
+        // given
+        var value = "v".repeat(4096);
+
+        // when
+        client.multi();
+        client.set(KEY, value);
+        client.incr(COUNTER);
+        client.get(KEY);
+        var result = client.exec();
+
+        // then
+        assertEquals(3, result.size());
+        assertEquals("OK", result.get(0));
+        assertEquals(1L, (Long) result.get(1));
+        assertEquals(value, result.get(2));
+    }
+
+    @Test
+    void shouldReplyToManyQueuedCommands() {
+        // given
+        var commands = 300;
+
+        // when
+        client.multi();
+        for (int i = 0; i < commands; i++) {
+            client.incr(COUNTER);
+        }
+        var result = client.exec();
+
+        // then
+        assertEquals(commands, result.size());
+        assertEquals((long) commands, (Long) result.get(commands - 1));
+    }
+}
@@ -0,0 +1,123 @@
+package commands.strategies.intergration;
+
+import commands.RedisTestContainer;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.NestedMultiOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LATENCYStrategyTest extends RedisTestContainer {
+    private static RedisCommands<String, String> client;
+    private static final String KEY = "key";
+
+    private enum Keyword implements ProtocolKeyword {
+        LATENCY;
+
+        @Override
+        public byte[] getBytes() {
+            return name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @BeforeEach
+    void init() {
+        client = registerClient();
+        client.del(KEY);
+    }
+
+    @Test
+    void shouldCountCallsAndFailures() {
+        // given
+        var callsBefore = statField(client.info("commandstats"), "cmdstat_incr", "calls");
+        var failedBefore = statField(client.info("commandstats"), "cmdstat_incr", "failed_calls");
+        client.set(KEY, "not a number");
+
+        // when
+        assertThrows(RedisCommandExecutionException.class, () -> client.incr(KEY));
+        client.set(KEY, "1");
+        client.incr(KEY);
+
+        // then
+        var stats = client.info("commandstats");
+        assertEquals(callsBefore + 2, statField(stats, "cmdstat_incr", "calls"));
+        assertEquals(failedBefore + 1, statField(stats, "cmdstat_incr", "failed_calls"));
+    }
+
+    @Test
+    void shouldCountFailuresOfAsyncCommands() {
+        // given
+        var callsBefore = statField(client.info("commandstats"), "cmdstat_lrange", "calls");
+        var failedBefore = statField(client.info("commandstats"), "cmdstat_lrange", "failed_calls");
+        client.set(KEY, "not a list");
+
+        // when
+        assertThrows(RedisCommandExecutionException.class, () -> client.lrange(KEY, 0, -1));
+        client.del(KEY);
+        client.lrange(KEY, 0, -1);
+
+        // then
+        var stats = client.info("commandstats");
+        assertEquals(callsBefore + 2, statField(stats, "cmdstat_lrange", "calls"));
+        assertEquals(failedBefore + 1, statField(stats, "cmdstat_lrange", "failed_calls"));
+    }
+
+    @Test
+    void shouldReportLatencyPercentiles() {
+        // given
+        client.set(KEY, "value");
+
+        // when
+        var stats = client.info("latencystats");
+
+        // then
+        assertTrue(stats.matches("(?s).*latency_percentiles_usec_set:p50=[0-9.]+,p99=[0-9.]+,p99\\.9=[0-9.]+.*"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReplyWithLatencyHistogram() {
+        // given
+        for (int i = 0; i < 10; i++) {
+            client.get(KEY);
+        }
+        var args = new CommandArgs<>(StringCodec.UTF8).add("HISTOGRAM").add("get").add("no-such-command");
+
+        // when
+        var reply = client.dispatch(Keyword.LATENCY, new NestedMultiOutput<>(StringCodec.UTF8), args);
+
+        // then
+        assertEquals(2, reply.size());
+        assertEquals("get", reply.getFirst());
+        var details = (List<Object>) reply.get(1);
+        assertEquals("calls", details.getFirst());
+        var calls = (Long) details.get(1);
+        assertTrue(calls >= 10);
+        var histogram = (List<Object>) details.get(3);
+        // the cumulative count of the last bucket covers every call
+        assertEquals(calls, histogram.getLast());
+    }
+
+    private static long statField(String section, String stat, String field) {
+        for (var line : section.split("\r\n")) {
+            if (!line.startsWith(stat + ":")) {
+                continue;
+            }
+            for (var pair : line.substring(stat.length() + 1).split(",")) {
+                var keyValue = pair.split("=");
+                if (keyValue[0].equals(field)) {
+                    return Long.parseLong(keyValue[1]);
+                }
+            }
+        }
+        return 0;
+    }
+}
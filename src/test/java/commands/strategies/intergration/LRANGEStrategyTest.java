@@ -3,6 +3,10 @@ package commands.strategies.intergration;
 import commands.RedisTestContainer;
 import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.ValueListOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -11,8 +15,10 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static commands.Errors.NOT_AN_INTEGER;
 import static commands.Errors.WRONG_TYPE;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -74,4 +80,33 @@ public class LRANGEStrategyTest extends RedisTestContainer {
                 WRONG_TYPE
         );
     }
+
+    @Test
+    void shouldFailWithNonIntegerIndexesAndKeepServing() {
+        // given
+        var args = new CommandArgs<>(StringCodec.UTF8).addKey(KEY).add("a").add("b");
+
+        // when
+        var error = assertThrows(RedisCommandExecutionException.class,
+                () -> client.dispatch(CommandType.LRANGE, new ValueListOutput<>(StringCodec.UTF8), args));
+
+        // then
+        assertEquals(NOT_AN_INTEGER, error.getMessage());
+        assertEquals(TEST_VALUES, client.lrange(KEY, 0, -1));
+    }
+
+    @Test
+    void shouldReturnRangeSpanningManyChunks() {
+        // given
+        var largeKey = "largeListKey";
+        var values = IntStream.range(0, 50_000).mapToObj(i -> "value-" + i).toArray(String[]::new);
+        client.del(largeKey);
+        client.rpush(largeKey, values);
+
+        // when
+        List<String> result = client.lrange(largeKey, 0, -1);
+
+        // then
+        assertEquals(List.of(values), result);
+    }
 }
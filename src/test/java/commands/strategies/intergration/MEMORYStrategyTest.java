@@ -0,0 +1,119 @@
+package commands.strategies.intergration;
+
+import commands.RedisTestContainer;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.IntegerOutput;
+import io.lettuce.core.output.NestedMultiOutput;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MEMORYStrategyTest extends RedisTestContainer {
+    private static RedisCommands<String, String> client;
+    private static final String KEY = "key";
+    private static final String LIST_KEY = "list";
+
+    @BeforeEach
+    void init() {
+        client = registerClient();
+        client.del(KEY, LIST_KEY);
+    }
+
+    @Test
+    void shouldReportLargerUsageForLargerValue() {
+        // given
+        client.set(KEY, "a");
+        var small = client.memoryUsage(KEY);
+
+        // when
+        client.set(KEY, "a".repeat(1000));
+        var large = client.memoryUsage(KEY);
+
+        // then
+        assertTrue(small > 0);
+        assertTrue(large >= small + 1000);
+    }
+
+    @Test
+    void shouldReplyNullForMissingKey() {
+        // when
+        var usage = client.memoryUsage("missing");
+
+        // then
+        assertNull(usage);
+    }
+
+    @Test
+    void shouldMeasureEveryElementWithZeroSamples() {
+        // given
+        client.rpush(LIST_KEY, "a", "b", "c", "d", "e", "f", "g", "h");
+        client.rpush(LIST_KEY, "a".repeat(1000));
+
+        // when
+        var sampled = client.dispatch(CommandType.MEMORY, new IntegerOutput<>(StringCodec.UTF8),
+                new CommandArgs<>(StringCodec.UTF8).add("USAGE").add(LIST_KEY).add("SAMPLES").add(5));
+        var exact = client.dispatch(CommandType.MEMORY, new IntegerOutput<>(StringCodec.UTF8),
+                new CommandArgs<>(StringCodec.UTF8).add("USAGE").add(LIST_KEY).add("SAMPLES").add(0));
+
+        // then
+        // the large last element is only seen when every element is measured
+        assertTrue(exact > sampled + 900);
+    }
+
+    @Test
+    void shouldTrackDatasetInInfoMemory() {
+        // given
+        var before = infoField(client.info("memory"), "used_memory_dataset");
+
+        // when
+        client.set(KEY, "a".repeat(10_000));
+
+        // then
+        var info = client.info("memory");
+        assertTrue(infoField(info, "used_memory_dataset") >= before + 10_000);
+        assertTrue(infoField(info, "used_memory") >= infoField(info, "used_memory_dataset"));
+        assertTrue(infoField(info, "used_memory_peak") >= infoField(info, "used_memory"));
+    }
+
+    @Test
+    void shouldReplyWithStatsPairs() {
+        // given
+        client.set(KEY, "value");
+        var args = new CommandArgs<>(StringCodec.UTF8).add("STATS");
+
+        // when
+        var stats = client.dispatch(CommandType.MEMORY, new NestedMultiOutput<>(StringCodec.UTF8), args);
+
+        // then
+        assertEquals(24, stats.size());
+        var keysCount = stats.indexOf("keys.count");
+        assertTrue((Long) stats.get(keysCount + 1) >= 1);
+        assertTrue(stats.contains("dataset.bytes"));
+    }
+
+    @Test
+    void shouldRejectUnknownSubcommand() {
+        // given
+        var args = new CommandArgs<>(StringCodec.UTF8).add("NOPE");
+
+        // then
+        assertThrows(RedisCommandExecutionException.class,
+                () -> client.dispatch(CommandType.MEMORY, new StatusOutput<>(StringCodec.UTF8), args)
+        );
+    }
+
+    private static long infoField(String section, String field) {
+        for (var line : section.split("\r\n")) {
+            if (line.startsWith(field + ":")) {
+                return Long.parseLong(line.substring(field.length() + 1));
+            }
+        }
+        return 0;
+    }
+}
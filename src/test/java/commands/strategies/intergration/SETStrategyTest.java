@@ -1,8 +1,13 @@
 package commands.strategies.intergration;
 
 import commands.RedisTestContainer;
+import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.SetArgs;
 import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,6 +15,9 @@ import org.junit.jupiter.api.Test;
 import java.time.Instant;
 import java.util.concurrent.TimeUnit;
 
+import static commands.Errors.NOT_AN_INTEGER;
+import static commands.Errors.SYNTAX_ERROR;
+
 public class SETStrategyTest extends RedisTestContainer {
     private static RedisCommands<String, String> client;
 
@@ -32,6 +40,48 @@ public class SETStrategyTest extends RedisTestContainer {
         Assertions.assertEquals(value, client.get(key));
     }
 
+    @Test
+    void shouldSucceedWithValueLargerThanReadBuffer() {
+        // given
+        var key = "largeKey";
+        var value = "v".repeat(256 * 1024);
+
+        // when
+        var result = client.set(key, value);
+
+        // then
+        Assertions.assertEquals("OK", result);
+        Assertions.assertEquals(value, client.get(key));
+    }
+
+    @Test
+    void shouldKeepMultiByteValueIntact() {
+        // given
+        var key = "unicodeKey";
+        var value = "héllo wörld ✓ 🚀";
+
+        // when
+        var result = client.set(key, value);
+
+        // then
+        Assertions.assertEquals("OK", result);
+        Assertions.assertEquals(value, client.get(key));
+    }
+
+    @Test
+    void shouldKeepBinaryKeyAndValueIntact() {
+        // given
+        var binaryClient = registerBinaryClient();
+        var key = new byte[] {0, (byte) 0xff, '\r', '\n', 1};
+        var value = new byte[] {(byte) 0xc3, 0x28, 0, '\r', '\n', (byte) 0x80, (byte) 0xfe};
+
+        // when
+        var result = binaryClient.set(key, value);
+
+        // then
+        Assertions.assertEquals("OK", result);
+        Assertions.assertArrayEquals(value, binaryClient.get(key));
+    }
 
     @Test
     void shouldSucceedWithExpiryEX() throws InterruptedException {
@@ -165,4 +215,31 @@ public class SETStrategyTest extends RedisTestContainer {
         Assertions.assertNull(result);
         Assertions.assertNull(client.get(key));
     }
+
+    @Test
+    void shouldFailWithNonIntegerExpiry() {
+        // given
+        var args = new CommandArgs<>(StringCodec.UTF8).addKey("key").addValue("value").add("EX").add("soon");
+
+        // when
+        var error = Assertions.assertThrows(RedisCommandExecutionException.class,
+                () -> client.dispatch(CommandType.SET, new StatusOutput<>(StringCodec.UTF8), args));
+
+        // then
+        Assertions.assertEquals(NOT_AN_INTEGER, error.getMessage());
+        Assertions.assertEquals("PONG", client.ping());
+    }
+
+    @Test
+    void shouldFailWithUnknownOption() {
+        // given
+        var args = new CommandArgs<>(StringCodec.UTF8).addKey("key").addValue("value").add("FOREVER");
+
+        // when
+        var error = Assertions.assertThrows(RedisCommandExecutionException.class,
+                () -> client.dispatch(CommandType.SET, new StatusOutput<>(StringCodec.UTF8), args));
+
+        // then
+        Assertions.assertEquals(SYNTAX_ERROR, error.getMessage());
+    }
 }
@@ -0,0 +1,44 @@
+package commands.strategies.intergration;
+
+import commands.RedisTestContainer;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SLOWLOGStrategyTest extends RedisTestContainer {
+    private static RedisCommands<String, String> client;
+
+    @BeforeEach
+    void init() {
+        client = registerClient();
+    }
+
+    @Test
+    void shouldBeEmptyAfterReset() {
+        // when
+        var result = client.slowlogReset();
+
+        // then
+        assertEquals("OK", result);
+        assertEquals(0L, client.slowlogLen());
+        assertTrue(client.slowlogGet().isEmpty());
+    }
+
+    @Test
+    void shouldRejectUnknownSubcommand() {
+        // given
+        var args = new CommandArgs<>(StringCodec.UTF8).add("NOPE");
+
+        // then
+        assertThrows(RedisCommandExecutionException.class,
+                () -> client.dispatch(CommandType.SLOWLOG, new StatusOutput<>(StringCodec.UTF8), args)
+        );
+    }
+}
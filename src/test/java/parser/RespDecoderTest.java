@@ -0,0 +1,208 @@
+package parser;
+
+import org.junit.jupiter.api.Test;
+import parser.exceptions.ProtocolException;
+import store.types.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RespDecoderTest {
+    private static final String COMMAND = "*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$10\r\nvalue\r\nxyz\r\n";
+    private static final List<ByteString> DECODED = ByteString.listOf("SET", "key", "value\r\nxyz");
+
+    @Test
+    void shouldDecodeCompleteCommand() {
+        // given
+        var decoder = new RespDecoder();
+        var buffer = readBuffer(COMMAND);
+
+        // when
+        var command = decoder.decode(buffer);
+
+        // then
+        assertEquals(DECODED, command);
+        assertFalse(buffer.hasRemaining());
+        assertNull(decoder.decode(buffer));
+    }
+
+    @Test
+    void shouldDecodeCommandSplitAtEveryByte() {
+        var bytes = COMMAND.getBytes(StandardCharsets.US_ASCII);
+        for (int split = 1; split < bytes.length; split++) {
+            // given
+            var decoder = new RespDecoder();
+            var buffer = ByteBuffer.allocate(bytes.length);
+            buffer.put(bytes, 0, split).flip();
+
+            // when
+            var partial = decoder.decode(buffer);
+            // like a connection does before reading the rest, which moves the unconsumed bytes
+            buffer.compact();
+            buffer.put(bytes, split, bytes.length - split).flip();
+            var command = decoder.decode(buffer);
+
+            // then
+            assertNull(partial, "split at " + split);
+            assertEquals(DECODED, command, "split at " + split);
+            assertFalse(buffer.hasRemaining(), "split at " + split);
+        }
+    }
+
+    @Test
+    void shouldDecodeCommandReadOneByteAtATime() {
+        // given
+        var bytes = COMMAND.getBytes(StandardCharsets.US_ASCII);
+        var decoder = new RespDecoder();
+        var buffer = ByteBuffer.allocate(bytes.length);
+        List<ByteString> command = null;
+
+        // when
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(bytes[i]).flip();
+            command = decoder.decode(buffer);
+            assertEquals(i == bytes.length - 1, command != null, "byte " + i);
+            buffer.compact();
+        }
+
+        // then
+        assertEquals(DECODED, command);
+    }
+
+    @Test
+    void shouldDecodePipelinedCommandsInOrder() {
+        // given
+        var decoder = new RespDecoder();
+        var buffer = readBuffer("*1\r\n$4\r\nPING\r\n*2\r\n$4\r\nECHO\r\n$2\r\nhi\r\n*1\r\n$4\r\nPI");
+
+        // when
+        var first = decoder.decode(buffer);
+        var second = decoder.decode(buffer);
+        var incomplete = decoder.decode(buffer);
+
+        // then
+        assertEquals(ByteString.listOf("PING"), first);
+        assertEquals(ByteString.listOf("ECHO", "hi"), second);
+        assertNull(incomplete);
+    }
+
+    @Test
+    void shouldSkipNullAndEmptyArrays() {
+        // given
+        var decoder = new RespDecoder();
+        var buffer = readBuffer("*0\r\n*-1\r\n*1\r\n$4\r\nPING\r\n");
+
+        // when
+        var command = decoder.decode(buffer);
+
+        // then
+        assertEquals(ByteString.listOf("PING"), command);
+    }
+
+    @Test
+    void shouldDecodeEmptyBulkString() {
+        // given
+        var decoder = new RespDecoder();
+        var buffer = readBuffer("*2\r\n$4\r\nECHO\r\n$0\r\n\r\n");
+
+        // when
+        var command = decoder.decode(buffer);
+
+        // then
+        assertEquals(ByteString.listOf("ECHO", ""), command);
+    }
+
+    @Test
+    void shouldAcceptBulkLengthUpToTheLimit() {
+        // given
+        var decoder = new RespDecoder();
+        var buffer = readBuffer("*1\r\n$536870912\r\nabc");
+
+        // when
+        var command = decoder.decode(buffer);
+
+        // then
+        assertNull(command);
+        assertEquals(536870914, decoder.bytesNeeded());
+    }
+
+    @Test
+    void shouldReportBytesNeededForPendingBulkString() {
+        // given
+        var decoder = new RespDecoder();
+        var buffer = readBuffer("*2\r\n$3\r\nGET\r\n$1000\r\nabc");
+
+        // when
+        var command = decoder.decode(buffer);
+
+        // then
+        assertNull(command);
+        assertEquals(1002, decoder.bytesNeeded());
+        assertEquals(3, buffer.remaining());
+    }
+
+    @Test
+    void shouldNotConsumeIncompleteHeader() {
+        // given
+        var decoder = new RespDecoder();
+        var buffer = readBuffer("*1\r\n$12\r");
+
+        // when
+        var command = decoder.decode(buffer);
+
+        // then
+        assertNull(command);
+        assertEquals(0, decoder.bytesNeeded());
+        assertEquals("$12\r", StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+
+    @Test
+    void shouldRejectBulkStringWithoutCrlf() {
+        assertProtocolError("*1\r\n$4\r\nPINGxx", "CRLF terminator incomplete or doesn't exist");
+        assertProtocolError("*1\r\n$4\r\nPING\rx", "CRLF terminator incomplete or doesn't exist");
+    }
+
+    @Test
+    void shouldRejectHeaderWithCrNotFollowedByLf() {
+        assertProtocolError("*1\rx", "CR not followed by LF");
+        assertProtocolError("*1\r\n$4\r$", "CR not followed by LF");
+    }
+
+    @Test
+    void shouldRejectMalformedLengths() {
+        assertProtocolError("*1\r\n$x\r\n", "invalid character 'x' in length");
+        assertProtocolError("*1 \r\n", "invalid character ' ' in length");
+        assertProtocolError("*\r\n", "invalid length, no digits");
+        assertProtocolError("*-\r\n", "invalid length, no digits");
+        assertProtocolError("*12345678901\r\n", "invalid length, too many digits");
+        assertProtocolError("*1\r\n$9999999999\r\n", "invalid length 9999999999");
+        assertProtocolError("*1\r\n$-1\r\n", "invalid bulk length");
+        // would overflow once the CRLF is counted
+        assertProtocolError("*1\r\n$2147483647\r\n", "invalid length 2147483647");
+        assertProtocolError("*1\r\n$2147483646\r\n", "invalid length 2147483646");
+        assertProtocolError("*1\r\n$536870913\r\n", "invalid length 536870913");
+        assertProtocolError("*2147483648\r\n", "invalid length 2147483648");
+    }
+
+    @Test
+    void shouldRejectUnexpectedTypes() {
+        assertProtocolError("+PING\r\n", "expected '*', got '+'");
+        assertProtocolError("*1\r\n:1\r\n", "expected '$', got ':'");
+    }
+
+    private static void assertProtocolError(String input, String message) {
+        var decoder = new RespDecoder();
+        var buffer = readBuffer(input);
+
+        var error = assertThrows(ProtocolException.class, () -> decoder.decode(buffer), input);
+
+        assertEquals(message, error.getMessage());
+    }
+
+    private static ByteBuffer readBuffer(String input) {
+        return ByteBuffer.wrap(input.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,49 @@
+package server;
+
+import commands.RedisTestContainer;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ActiveExpiryTest extends RedisTestContainer {
+    private static RedisCommands<String, String> client;
+    private static final int KEYS = 100;
+
+    @BeforeEach
+    void init() {
+        client = registerClient();
+    }
+
+    @Test
+    void shouldRemoveExpiredKeysThatAreNeverAccessed() throws InterruptedException {
+        // given
+        var expiredBefore = statsField(client.info("stats"), "expired_keys");
+        for (int i = 0; i < KEYS; i++) {
+            client.set("volatile:" + i, "value", SetArgs.Builder.px(50));
+        }
+
+        // when
+        var expired = expiredBefore;
+        for (int attempt = 0; attempt < 20 && expired < expiredBefore + KEYS; attempt++) {
+            Thread.sleep(100);
+            expired = statsField(client.info("stats"), "expired_keys");
+        }
+
+        // then
+        assertEquals(expiredBefore + KEYS, expired);
+        assertTrue(client.info("stats").contains("expired_stale_perc:"));
+    }
+
+    private static long statsField(String section, String field) {
+        for (var line : section.split("\r\n")) {
+            if (line.startsWith(field + ":")) {
+                return Long.parseLong(line.substring(field.length() + 1));
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,30 @@
+package server;
+
+import commands.RedisTestContainer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ClientLimitsTest extends RedisTestContainer {
+
+    @Test
+    void shouldCloseClientAnnouncingBulkLargerThanQueryBufferLimit() throws IOException {
+        // given
+        var oversizedCommand = "*2\r\n$3\r\nGET\r\n$2000000000\r\nabc";
+
+        try (var socket = new Socket(redis.getHost(), redis.getMappedPort(6379))) {
+            socket.setSoTimeout(5000);
+
+            // when
+            socket.getOutputStream().write(oversizedCommand.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            // then
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputBufferLimitsTest {
+
+    @Test
+    void shouldParseNormalClientLimits() {
+        // then
+        assertDoesNotThrow(() -> OutputBufferLimits.parse("normal 64mb 16mb 60"));
+        assertDoesNotThrow(() -> OutputBufferLimits.parse(OutputBufferLimits.DEFAULT_LIMITS));
+    }
+
+    @Test
+    void shouldRejectClassesWithoutClients() {
+        // when
+        var error = assertThrows(IllegalArgumentException.class,
+                () -> OutputBufferLimits.parse("pubsub 32mb 8mb 60"));
+
+        // then
+        assertTrue(error.getMessage().contains("Unsupported client class pubsub"));
+        assertThrows(IllegalArgumentException.class, () -> OutputBufferLimits.parse("replica 256mb 64mb 60"));
+        assertThrows(IllegalArgumentException.class, () -> OutputBufferLimits.parse("slave 256mb 64mb 60"));
+    }
+
+    @Test
+    void shouldRejectMalformedLimits() {
+        // then
+        assertThrows(IllegalArgumentException.class, () -> OutputBufferLimits.parse("unknown 0 0 0"));
+        assertThrows(IllegalArgumentException.class, () -> OutputBufferLimits.parse("normal 0 0"));
+        assertThrows(IllegalArgumentException.class, () -> OutputBufferLimits.parse("normal 0 0 0 normal 1mb 0 0"));
+        assertThrows(IllegalArgumentException.class, () -> OutputBufferLimits.parse("normal 10xb 0 0"));
+    }
+
+    @Test
+    void shouldParseSizesWithRedisUnits() {
+        // then
+        assertEquals(64, OutputBufferLimits.parseBytes("64"));
+        assertEquals(2000, OutputBufferLimits.parseBytes("2k"));
+        assertEquals(2048, OutputBufferLimits.parseBytes("2KB"));
+        assertEquals(3L * 1024 * 1024 * 1024, OutputBufferLimits.parseBytes("3gb"));
+    }
+}
@@ -0,0 +1,108 @@
+package server;
+
+import commands.RedisTestContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static commands.Errors.UNBALANCED_XREAD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipeliningTest extends RedisTestContainer {
+    private static final String KEY = "pipelined";
+
+    @BeforeEach
+    void init() {
+        registerClient().del(KEY);
+    }
+
+    @Test
+    void shouldReplyToEveryPipelinedCommandInOrder() throws IOException {
+        // given
+        var pipeline = "*3\r\n$3\r\nSET\r\n$9\r\npipelined\r\n$1\r\n1\r\n" +
+                "*2\r\n$4\r\nINCR\r\n$9\r\npipelined\r\n" +
+                "*2\r\n$3\r\nGET\r\n$9\r\npipelined\r\n" +
+                "*1\r\n$4\r\nPING\r\n";
+        var expected = "+OK\r\n:2\r\n$1\r\n2\r\n+PONG\r\n";
+
+        try (var socket = new Socket(redis.getHost(), redis.getMappedPort(6379))) {
+            // when
+            socket.getOutputStream().write(pipeline.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            // then
+            assertEquals(expected, readReplies(socket.getInputStream(), expected.length()));
+        }
+    }
+
+    @Test
+    void shouldExecuteCommandSplitAcrossReads() throws Exception {
+        // given
+        var firstPart = "*3\r\n$3\r\nSET\r\n$9\r\npipel";
+        var secondPart = "ined\r\n$5\r\nval";
+        var thirdPart = "ue\r\n*2\r\n$3\r\nGET\r\n$9\r\npipelined\r\n";
+        var expected = "+OK\r\n$5\r\nvalue\r\n";
+
+        try (var socket = new Socket(redis.getHost(), redis.getMappedPort(6379))) {
+            // when
+            var out = socket.getOutputStream();
+            for (var part : new String[] {firstPart, secondPart, thirdPart}) {
+                out.write(part.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(50);
+            }
+
+            // then
+            assertEquals(expected, readReplies(socket.getInputStream(), expected.length()));
+        }
+    }
+
+    @Test
+    void shouldReplyToCommandsBeforeProtocolErrorThenClose() throws IOException {
+        // given
+        var pipeline = "*1\r\n$4\r\nPING\r\n" +
+                "*2\r\n$4\r\nECHO\r\n$2\r\nhi\r\n" +
+                "*1\r\n$x\r\n";
+
+        try (var socket = new Socket(redis.getHost(), redis.getMappedPort(6379))) {
+            socket.setSoTimeout(5000);
+
+            // when
+            socket.getOutputStream().write(pipeline.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            // then
+            // readAllBytes only returns once the server closed the connection
+            var replies = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(replies.startsWith("+PONG\r\n$2\r\nhi\r\n-ERR Protocol error"), replies);
+        }
+    }
+
+    @Test
+    void shouldSendASingleErrorForInvalidXread() throws IOException {
+        // given
+        var pipeline = "*5\r\n$5\r\nXREAD\r\n$7\r\nSTREAMS\r\n$1\r\na\r\n$1\r\nb\r\n$3\r\n0-0\r\n" +
+                "*1\r\n$4\r\nPING\r\n";
+        var expected = "!" + UNBALANCED_XREAD.length() + "\r\n" + UNBALANCED_XREAD + "\r\n+PONG\r\n";
+
+        try (var socket = new Socket(redis.getHost(), redis.getMappedPort(6379))) {
+            // when
+            socket.getOutputStream().write(pipeline.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            // then
+            // the PING reply comes right after the error, nothing else was sent for the XREAD
+            assertEquals(expected, readReplies(socket.getInputStream(), expected.length()));
+        }
+    }
+
+    private static String readReplies(InputStream in, int length) throws IOException {
+        var replies = in.readNBytes(length);
+        return new String(replies, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,47 @@
+package store;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+import store.types.ByteString;
+import store.types.DataType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class RedisObjectLayoutTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void shouldFitMetadataInThirtyTwoBytes() {
+        // the expected size holds for 4 bytes references, the default below 32 GB of heap
+        assumeTrue(VM.current().addressSize() == 4);
+
+        // when
+        var instanceSize = ClassLayout.parseClass(RedisObject.class).instanceSize();
+
+        // then
+        assertTrue(instanceSize <= 32, ClassLayout.parseClass(RedisObject.class).toPrintable());
+    }
+
+    @Test
+    void shouldNotAllocateMetadataObjectsPerKey() {
+        // given
+        var value = ByteString.of("value");
+        var persistent = new RedisObject(value, DataType.STRING, RedisObject.NO_EXPIRY, NOW);
+        var volatileKey = new RedisObject(value, DataType.STRING, NOW + 1000, NOW);
+
+        // when
+        var valueSize = GraphLayout.parseInstance(value).totalSize();
+        var persistentSize = GraphLayout.parseInstance(persistent).totalSize();
+        var volatileSize = GraphLayout.parseInstance(volatileKey).totalSize();
+
+        // then
+        // besides the value, a key costs its entry object alone, whether it expires or not
+        var entrySize = ClassLayout.parseClass(RedisObject.class).instanceSize();
+        assertEquals(entrySize, persistentSize - valueSize);
+        assertEquals(entrySize, volatileSize - valueSize);
+    }
+}